@@ -1,13 +1,16 @@
 package com.tistory.jaimemin.querydsl;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.tistory.jaimemin.querydsl.repository.support.DeadlineAwareJPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 
 import javax.persistence.EntityManager;
 
-@SpringBootApplication
+// 트랜잭션은 JPA로 관리한다. R2DBC 트랜잭션 매니저가 등록되면 JpaTransactionManager가 빠진다
+@SpringBootApplication(exclude = R2dbcTransactionManagerAutoConfiguration.class)
 public class QuerydslApplication {
 
     public static void main(String[] args) {
@@ -16,6 +19,6 @@ public class QuerydslApplication {
 
     @Bean
     JPAQueryFactory jpaQueryFactory(EntityManager entityManager) {
-        return new JPAQueryFactory(entityManager);
+        return new DeadlineAwareJPAQueryFactory(entityManager);
     }
 }
@@ -0,0 +1,26 @@
+package com.tistory.jaimemin.querydsl.admission;
+
+import lombok.Data;
+
+@Data
+public class AdmissionStats {
+
+    private long fastLane;
+
+    private long slowLane;
+
+    private long rejected;
+
+    // 추정 오차는 q-error(max(추정/실제, 실제/추정), 둘 다 +1 보정)로 잰다
+    private double meanQError;
+
+    private double maxQError;
+
+    public AdmissionStats(long fastLane, long slowLane, long rejected, double meanQError, double maxQError) {
+        this.fastLane = fastLane;
+        this.slowLane = slowLane;
+        this.rejected = rejected;
+        this.meanQError = meanQError;
+        this.maxQError = maxQError;
+    }
+}
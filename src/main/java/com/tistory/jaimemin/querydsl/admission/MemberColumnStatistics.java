@@ -0,0 +1,181 @@
+package com.tistory.jaimemin.querydsl.admission;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.tistory.jaimemin.querydsl.dictionary.TeamNameDictionary;
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.event.BackgroundReload;
+import com.tistory.jaimemin.querydsl.event.EntityChangeEvent;
+import com.tistory.jaimemin.querydsl.event.EntityChangeListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.tistory.jaimemin.querydsl.entity.QMember.member;
+
+/**
+ * 검색 비용 추정용 member 컬럼 통계 (팀별 회원 수, 나이 히스토그램)
+ * 시작 시 group by로 읽고, 이후에는 커밋된 변경으로 증분 갱신한다
+ * bulk 연산이나 누적 오차는 주기적인 전체 갱신으로 바로잡는다
+ * 전체 갱신은 새 구조를 만들어 교체하므로 읽는 쪽이 비어 있는 중간 상태를 보지 않는다. bulk 연산 후 갱신은 별도 스레드에서 실행한다
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberColumnStatistics implements EntityChangeListener {
+
+    // 나이는 1살 단위 버킷, 마지막 버킷은 MAX_AGE 이상
+    static final int MAX_AGE = 150;
+
+    private final JPAQueryFactory queryFactory;
+
+    private final TeamNameDictionary teamNameDictionary;
+
+    private final AtomicLong total = new AtomicLong();
+
+    private volatile AtomicLongArray ageHistogram = new AtomicLongArray(MAX_AGE + 1);
+
+    private volatile Map<Long, AtomicLong> teamCounts = new ConcurrentHashMap<>();
+
+    private final BackgroundReload bulkReload = new BackgroundReload("member-column-statistics", this::refresh);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${member.admission.statistics-refresh-ms:300000}",
+            initialDelayString = "${member.admission.statistics-refresh-ms:300000}")
+    public synchronized void refresh() {
+        AtomicLongArray ages = new AtomicLongArray(MAX_AGE + 1);
+        long count = 0;
+
+        for (Tuple tuple : queryFactory.select(member.age, member.count()).from(member).groupBy(member.age).fetch()) {
+            long rows = tuple.get(member.count());
+            ages.addAndGet(bucket(tuple.get(member.age)), rows);
+            count += rows;
+        }
+
+        Map<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+
+        for (Tuple tuple : queryFactory.select(member.team.id, member.count())
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id)
+                .fetch()) {
+            counts.put(tuple.get(member.team.id), new AtomicLong(tuple.get(member.count())));
+        }
+
+        ageHistogram = ages;
+        teamCounts = counts;
+        total.set(count);
+    }
+
+    @Override
+    public void onChange(EntityChangeEvent event) {
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+
+        switch (event.getType()) {
+            case INSERT:
+                add(event.getCurrent("age"), event.referenceId(event.getCurrent("team")), 1);
+                break;
+            case DELETE:
+                add(event.getCurrent("age"), event.referenceId(event.getCurrent("team")), -1);
+                break;
+            case UPDATE:
+                if (event.getPreviousState() != null) {
+                    add(event.getPrevious("age"), event.referenceId(event.getPrevious("team")), -1);
+                    add(event.getCurrent("age"), event.referenceId(event.getCurrent("team")), 1);
+                }
+                break;
+        }
+    }
+
+    @Override
+    public void onBulkChange(Class<?> entityType) {
+        if (Member.class.equals(entityType)) {
+            bulkReload.request();
+        }
+    }
+
+    /**
+     * 조건별 선택도가 서로 독립이라고 보고 예상 행 수를 계산한다
+     *
+     * @param condition
+     * @return
+     */
+    public double estimateRows(MemberSearchCondition condition) {
+        long rows = total.get();
+
+        if (rows == 0) {
+            return 0;
+        }
+
+        double selectivity = 1.0;
+
+        if (StringUtils.hasText(condition.getUsername()) || StringUtils.hasText(condition.getUsernameIgnoreCase())) {
+            selectivity *= 1.0 / rows;
+        }
+
+        if (StringUtils.hasText(condition.getTeamName())) {
+            selectivity *= (double) teamRows(condition.getTeamName()) / rows;
+        }
+
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            selectivity *= (double) ageRows(condition.getAgeGoe(), condition.getAgeLoe()) / rows;
+        }
+
+        return rows * selectivity;
+    }
+
+    private long teamRows(String teamName) {
+        Set<Long> teamIds = teamNameDictionary.teamIds(teamName);
+
+        if (teamIds == null) {
+            return 0;
+        }
+
+        Map<Long, AtomicLong> counts = teamCounts;
+        long rows = 0;
+
+        for (Long teamId : teamIds) {
+            AtomicLong count = counts.get(teamId);
+            rows += count == null ? 0 : count.get();
+        }
+
+        return rows;
+    }
+
+    private long ageRows(Integer ageGoe, Integer ageLoe) {
+        int from = ageGoe == null ? 0 : bucket(ageGoe);
+        int to = ageLoe == null ? MAX_AGE : bucket(ageLoe);
+        AtomicLongArray ages = ageHistogram;
+        long rows = 0;
+
+        for (int i = from; i <= to; i++) {
+            rows += ages.get(i);
+        }
+
+        return rows;
+    }
+
+    private void add(Object age, Object teamId, int delta) {
+        total.addAndGet(delta);
+        ageHistogram.addAndGet(bucket(age == null ? 0 : (Integer) age), delta);
+
+        if (teamId != null) {
+            teamCounts.computeIfAbsent((Long) teamId, id -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    private static int bucket(int age) {
+        return Math.max(0, Math.min(MAX_AGE, age));
+    }
+}
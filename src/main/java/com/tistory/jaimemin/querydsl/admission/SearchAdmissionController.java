@@ -0,0 +1,136 @@
+package com.tistory.jaimemin.querydsl.admission;
+
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.repository.support.QueryDeadline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.QueryTimeoutException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * 예상 행 수가 임계값을 넘는 검색은 작은 slow lane executor에서만 실행한다
+ * slow lane이 가득 차면 바로 거절해서 저렴한 검색이 커넥션을 기다리지 않게 한다
+ */
+@Slf4j
+@Component
+public class SearchAdmissionController {
+
+    private final MemberColumnStatistics statistics;
+
+    private final double slowLaneThresholdRows;
+
+    private final ThreadPoolExecutor slowLane;
+
+    private final AtomicLong fastLaneCount = new AtomicLong();
+
+    private final AtomicLong slowLaneCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private long measured;
+
+    private double qErrorSum;
+
+    private double qErrorMax;
+
+    public SearchAdmissionController(MemberColumnStatistics statistics,
+                                     @Value("${member.admission.slow-lane-threshold-rows:10000}") double slowLaneThresholdRows,
+                                     @Value("${member.admission.slow-lane-threads:2}") int slowLaneThreads,
+                                     @Value("${member.admission.slow-lane-queue:4}") int slowLaneQueue) {
+        this.statistics = statistics;
+        this.slowLaneThresholdRows = slowLaneThresholdRows;
+        AtomicInteger sequence = new AtomicInteger();
+        this.slowLane = new ThreadPoolExecutor(slowLaneThreads, slowLaneThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(slowLaneQueue),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "member-slow-lane-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public <T> T admit(MemberSearchCondition condition, Callable<T> search, ToLongFunction<T> actualRows) {
+        double estimate = statistics.estimateRows(condition);
+        T result = estimate < slowLaneThresholdRows
+                ? runFastLane(search)
+                : runSlowLane(search);
+
+        recordError(estimate, actualRows.applyAsLong(result));
+
+        return result;
+    }
+
+    public synchronized AdmissionStats getStats() {
+        return new AdmissionStats(fastLaneCount.get(), slowLaneCount.get(), rejectedCount.get(),
+                measured == 0 ? 0.0 : qErrorSum / measured, qErrorMax);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        slowLane.shutdownNow();
+    }
+
+    private <T> T runFastLane(Callable<T> search) {
+        fastLaneCount.incrementAndGet();
+
+        try {
+            return search.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T runSlowLane(Callable<T> search) {
+        Future<T> future;
+
+        try {
+            future = slowLane.submit(QueryDeadline.propagate(search));
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            throw new SearchRejectedException("slow lane saturated");
+        }
+
+        slowLaneCount.incrementAndGet();
+
+        try {
+            Long remaining = QueryDeadline.remainingMillis();
+
+            return remaining == null ? future.get() : future.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new QueryTimeoutException("query deadline exceeded in slow lane");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SearchRejectedException("interrupted while waiting for slow lane");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private synchronized void recordError(double estimate, long actual) {
+        double qError = Math.max((estimate + 1) / (actual + 1), (actual + 1) / (estimate + 1));
+        measured++;
+        qErrorSum += qError;
+        qErrorMax = Math.max(qErrorMax, qError);
+    }
+}
@@ -0,0 +1,12 @@
+package com.tistory.jaimemin.querydsl.admission;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SearchRejectedException extends RuntimeException {
+
+    public SearchRejectedException(String message) {
+        super(message);
+    }
+}
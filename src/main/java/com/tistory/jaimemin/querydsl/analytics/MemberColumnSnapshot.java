@@ -0,0 +1,241 @@
+package com.tistory.jaimemin.querydsl.analytics;
+
+import com.tistory.jaimemin.querydsl.dictionary.TeamNameDictionary;
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.event.BackgroundReload;
+import com.tistory.jaimemin.querydsl.event.EntityChangeEvent;
+import com.tistory.jaimemin.querydsl.event.EntityChangeListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 집계용 member 열 사본. DB를 거치지 않고 팀별 통계, 나이 백분위, 조건별 건수를 계산한다
+ * 시작 시 member를 스트리밍으로 읽고, 이후에는 커밋된 Member 변경으로 갱신하며 bulk 연산 후에는 별도 스레드에서 다시 읽는다
+ * 커밋된 데이터만 반영하므로 쓰기 트랜잭션 안의 변경은 보이지 않는다 (단일 인스턴스 기준)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberColumnSnapshot implements EntityChangeListener {
+
+    private static final String SCAN_SQL = "SELECT member_id, age, team_id FROM member";
+
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TeamNameDictionary teamNameDictionary;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private MemberColumns columns;
+
+    // 다시 읽는 동안 커밋된 변경. 스캔에 보이지 않았을 수 있어 새 사본에 다시 적용한다
+    private List<EntityChangeEvent> changedWhileLoading;
+
+    private final BackgroundReload reload = new BackgroundReload("member-column-snapshot", this::scan);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload.run();
+    }
+
+    private void scan() {
+        lock.writeLock().lock();
+
+        try {
+            changedWhileLoading = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        MemberColumns next = new MemberColumns();
+        boolean completed = false;
+
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SCAN_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(SCAN_FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                long memberId = resultSet.getLong(1);
+                int age = resultSet.getInt(2);
+                long teamId = resultSet.getLong(3);
+                next.put(memberId, age, resultSet.wasNull() ? null : teamId);
+            });
+            completed = true;
+        } catch (RuntimeException e) {
+            log.warn("member column snapshot load failed", e);
+        } finally {
+            lock.writeLock().lock();
+
+            try {
+                if (completed) {
+                    changedWhileLoading.forEach(event -> apply(next, event));
+                    columns = next;
+                }
+
+                changedWhileLoading = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public void onChange(EntityChangeEvent event) {
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+
+        try {
+            if (columns != null) {
+                apply(columns, event);
+            }
+
+            if (changedWhileLoading != null) {
+                changedWhileLoading.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onBulkChange(Class<?> entityType) {
+        if (Member.class.equals(entityType)) {
+            reload.request();
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+
+        try {
+            return columns != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 사본을 아직 읽지 못했으면 IllegalStateException
+     *
+     * @return
+     */
+    public List<TeamAgeStats> teamStats() {
+        List<TeamAgeStats> stats;
+        lock.readLock().lock();
+
+        try {
+            stats = loadedColumns().teamStats();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        stats.forEach(stat -> stat.setTeamName(teamNameDictionary.teamName(stat.getTeamId())));
+
+        return stats;
+    }
+
+    /**
+     * 팀명, 나이 조건만 지원한다. username 조건이 있으면 IllegalArgumentException
+     *
+     * @param condition
+     * @return
+     */
+    public long count(MemberSearchCondition condition) {
+        Set<Long> teamIds = teamIds(condition);
+        lock.readLock().lock();
+
+        try {
+            return loadedColumns().count(teamIds, condition.getAgeGoe(), condition.getAgeLoe());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 조건에 맞는 회원 나이의 백분위. 맞는 회원이 없으면 null
+     *
+     * @param percentiles 0 초과 100 이하
+     * @param condition   팀명, 나이 조건만 지원한다
+     * @return
+     */
+    public int[] agePercentiles(double[] percentiles, MemberSearchCondition condition) {
+        for (double percentile : percentiles) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile must be in (0, 100]: " + percentile);
+            }
+        }
+
+        Set<Long> teamIds = teamIds(condition);
+        lock.readLock().lock();
+
+        try {
+            return loadedColumns().agePercentiles(percentiles, teamIds, condition.getAgeGoe(), condition.getAgeLoe());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> teamIds(MemberSearchCondition condition) {
+        if (StringUtils.hasText(condition.getUsername())
+                || StringUtils.hasText(condition.getUsernameIgnoreCase())
+                || StringUtils.hasText(condition.getUsernameStartsWith())
+                || StringUtils.hasText(condition.getUsernameContains())) {
+            throw new IllegalArgumentException("username conditions are not supported by the member snapshot");
+        }
+
+        if (!StringUtils.hasText(condition.getTeamName())) {
+            return null;
+        }
+
+        Set<Long> teamIds = teamNameDictionary.teamIds(condition.getTeamName());
+
+        if (teamIds == null) {
+            throw new IllegalStateException("team name dictionary is not available");
+        }
+
+        return teamIds;
+    }
+
+    private MemberColumns loadedColumns() {
+        if (columns == null) {
+            throw new IllegalStateException("member column snapshot is not loaded yet");
+        }
+
+        return columns;
+    }
+
+    private void apply(MemberColumns target, EntityChangeEvent event) {
+        long memberId = (Long) event.getId();
+
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            target.remove(memberId);
+            return;
+        }
+
+        Object age = event.getCurrent("age");
+        Object teamId = event.referenceId(event.getCurrent("team"));
+        target.put(memberId, age == null ? 0 : (Integer) age, (Long) teamId);
+    }
+}
@@ -0,0 +1,270 @@
+package com.tistory.jaimemin.querydsl.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * member의 열 단위 사본 (id, age, 팀 코드)
+ * 팀 id는 0부터 매긴 코드로 바꿔 int 배열에 담고, 집계는 배열을 한 번 훑는 기본형 루프로 계산한다
+ * 삭제는 마지막 행을 빈 자리로 옮겨 배열을 빽빽하게 유지한다. 스레드 안전하지 않다
+ */
+public class MemberColumns {
+
+    static final int NO_TEAM = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+
+    private int[] ages = new int[INITIAL_CAPACITY];
+
+    private int[] teamCodes = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+    // 팀 코드 -> 팀 id. 팀이 지워져도 코드는 재사용하지 않는다
+    private long[] teamIds = new long[16];
+
+    private int teamCount;
+
+    private final Map<Long, Integer> codes = new HashMap<>();
+
+    /**
+     * 없는 id면 추가하고, 있으면 나이와 팀을 바꾼다
+     *
+     * @param id
+     * @param age
+     * @param teamId
+     */
+    public void put(long id, int age, Long teamId) {
+        Integer position = positions.get(id);
+
+        if (position == null) {
+            ensureCapacity(size + 1);
+            position = size++;
+            ids[position] = id;
+            positions.put(id, position);
+        }
+
+        ages[position] = age;
+        teamCodes[position] = teamId == null ? NO_TEAM : codeOf(teamId);
+    }
+
+    public void remove(long id) {
+        Integer position = positions.remove(id);
+
+        if (position == null) {
+            return;
+        }
+
+        int last = --size;
+
+        if (position != last) {
+            ids[position] = ids[last];
+            ages[position] = ages[last];
+            teamCodes[position] = teamCodes[last];
+            positions.put(ids[position], position);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 팀별 회원 수와 나이 합계/평균/최솟값/최댓값. 소속 팀이 없는 회원과 회원이 없는 팀은 빠진다
+     *
+     * @return
+     */
+    public List<TeamAgeStats> teamStats() {
+        long[] counts = new long[teamCount];
+        long[] sums = new long[teamCount];
+        int[] mins = new int[teamCount];
+        int[] maxs = new int[teamCount];
+        Arrays.fill(mins, Integer.MAX_VALUE);
+        Arrays.fill(maxs, Integer.MIN_VALUE);
+
+        for (int i = 0; i < size; i++) {
+            int code = teamCodes[i];
+
+            if (code == NO_TEAM) {
+                continue;
+            }
+
+            int age = ages[i];
+            counts[code]++;
+            sums[code] += age;
+            mins[code] = Math.min(mins[code], age);
+            maxs[code] = Math.max(maxs[code], age);
+        }
+
+        List<TeamAgeStats> stats = new ArrayList<>();
+
+        for (int code = 0; code < teamCount; code++) {
+            if (counts[code] > 0) {
+                stats.add(new TeamAgeStats(teamIds[code], null, counts[code], sums[code],
+                        (double) sums[code] / counts[code], mins[code], maxs[code]));
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * 조건에 맞는 행 수
+     *
+     * @param teamIds 팀 조건이 없으면 null
+     * @param ageGoe
+     * @param ageLoe
+     * @return
+     */
+    public long count(Set<Long> teamIds, Integer ageGoe, Integer ageLoe) {
+        boolean[] teamMask = teamMask(teamIds);
+        int from = ageGoe == null ? Integer.MIN_VALUE : ageGoe;
+        int to = ageLoe == null ? Integer.MAX_VALUE : ageLoe;
+        long count = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (matches(i, teamMask, from, to)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * 조건에 맞는 행의 나이 백분위 (nearest-rank). 맞는 행이 없으면 null
+     * 나이 범위가 행 수보다 좁으면 정렬 대신 계수(counting)로 구한다
+     *
+     * @param percentiles 0 초과 100 이하
+     * @param teamIds     팀 조건이 없으면 null
+     * @param ageGoe
+     * @param ageLoe
+     * @return percentiles와 같은 순서의 값
+     */
+    public int[] agePercentiles(double[] percentiles, Set<Long> teamIds, Integer ageGoe, Integer ageLoe) {
+        boolean[] teamMask = teamMask(teamIds);
+        int from = ageGoe == null ? Integer.MIN_VALUE : ageGoe;
+        int to = ageLoe == null ? Integer.MAX_VALUE : ageLoe;
+        int[] matched = new int[size];
+        int count = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+
+        for (int i = 0; i < size; i++) {
+            if (matches(i, teamMask, from, to)) {
+                int age = ages[i];
+                matched[count++] = age;
+                min = Math.min(min, age);
+                max = Math.max(max, age);
+            }
+        }
+
+        if (count == 0) {
+            return null;
+        }
+
+        int[] result = new int[percentiles.length];
+
+        if ((long) max - min < count) {
+            long[] histogram = new long[max - min + 1];
+
+            for (int i = 0; i < count; i++) {
+                histogram[matched[i] - min]++;
+            }
+
+            for (int p = 0; p < percentiles.length; p++) {
+                long rank = rank(percentiles[p], count);
+                long seen = 0;
+                int bucket = 0;
+
+                while (seen + histogram[bucket] < rank) {
+                    seen += histogram[bucket++];
+                }
+
+                result[p] = min + bucket;
+            }
+        } else {
+            Arrays.sort(matched, 0, count);
+
+            for (int p = 0; p < percentiles.length; p++) {
+                result[p] = matched[(int) rank(percentiles[p], count) - 1];
+            }
+        }
+
+        return result;
+    }
+
+    private static long rank(double percentile, int count) {
+        return Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+    }
+
+    private boolean matches(int row, boolean[] teamMask, int from, int to) {
+        int age = ages[row];
+
+        if (age < from || age > to) {
+            return false;
+        }
+
+        if (teamMask == null) {
+            return true;
+        }
+
+        int code = teamCodes[row];
+
+        return code != NO_TEAM && teamMask[code];
+    }
+
+    private boolean[] teamMask(Set<Long> teamIds) {
+        if (teamIds == null) {
+            return null;
+        }
+
+        boolean[] mask = new boolean[teamCount];
+
+        for (Long teamId : teamIds) {
+            Integer code = codes.get(teamId);
+
+            if (code != null) {
+                mask[code] = true;
+            }
+        }
+
+        return mask;
+    }
+
+    private int codeOf(long teamId) {
+        Integer code = codes.get(teamId);
+
+        if (code != null) {
+            return code;
+        }
+
+        if (teamCount == teamIds.length) {
+            teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+        }
+
+        teamIds[teamCount] = teamId;
+        codes.put(teamId, teamCount);
+
+        return teamCount++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+
+        int grown = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, grown);
+        ages = Arrays.copyOf(ages, grown);
+        teamCodes = Arrays.copyOf(teamCodes, grown);
+    }
+}
@@ -0,0 +1,31 @@
+package com.tistory.jaimemin.querydsl.analytics;
+
+import lombok.Data;
+
+@Data
+public class TeamAgeStats {
+
+    private Long teamId;
+
+    private String teamName;
+
+    private long count;
+
+    private long sum;
+
+    private double avg;
+
+    private int min;
+
+    private int max;
+
+    public TeamAgeStats(Long teamId, String teamName, long count, long sum, double avg, int min, int max) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.avg = avg;
+        this.min = min;
+        this.max = max;
+    }
+}
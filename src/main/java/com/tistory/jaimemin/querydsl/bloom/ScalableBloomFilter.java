@@ -0,0 +1,185 @@
+package com.tistory.jaimemin.querydsl.bloom;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 원소 수를 미리 몰라도 오탐률을 지키는 Bloom filter (Almeida et al., Scalable Bloom Filters)
+ * 마지막 층이 가득 차면 용량은 GROWTH배, 오탐률은 TIGHTENING배인 층을 새로 붙인다
+ * 층별 오탐률이 등비수열이므로 전체 오탐률은 fpp 이하로 유지된다
+ * add는 직렬화하고 mightContain은 잠금 없이 읽는다
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+
+    private static final double TIGHTENING = 0.5;
+
+    private final List<Layer> layers = new CopyOnWriteArrayList<>();
+
+    public ScalableBloomFilter(int initialCapacity, double fpp) {
+        if (initialCapacity <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("initialCapacity > 0, 0 < fpp < 1");
+        }
+
+        layers.add(new Layer(initialCapacity, fpp * (1 - TIGHTENING)));
+    }
+
+    public synchronized void add(String value) {
+        long hash = hash(value);
+
+        // 이미 있다고 판정되는 값은 비트를 더 채우지 않는다
+        if (mightContain(hash)) {
+            return;
+        }
+
+        Layer last = layers.get(layers.size() - 1);
+
+        if (last.isFull()) {
+            last = new Layer(last.capacity * GROWTH, last.fpp * TIGHTENING);
+            layers.add(last);
+        }
+
+        last.add(hash);
+    }
+
+    public boolean mightContain(String value) {
+        return mightContain(hash(value));
+    }
+
+    private boolean mightContain(long hash) {
+        for (Layer layer : layers) {
+            if (layer.mightContain(hash)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * 현재 채워진 비트로 계산한 오탐률 (각 층 오탐률의 합집합)
+     *
+     * @return
+     */
+    public double expectedFpp() {
+        double miss = 1.0;
+
+        for (Layer layer : layers) {
+            miss *= 1 - layer.currentFpp();
+        }
+
+        return 1 - miss;
+    }
+
+    public long size() {
+        long size = 0;
+
+        for (Layer layer : layers) {
+            size += layer.count.get();
+        }
+
+        return size;
+    }
+
+    public long bitSize() {
+        long bits = 0;
+
+        for (Layer layer : layers) {
+            bits += layer.bits;
+        }
+
+        return bits;
+    }
+
+    public int layerCount() {
+        return layers.size();
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    private static final class Layer {
+
+        private final int capacity;
+
+        private final double fpp;
+
+        private final long bits;
+
+        private final int hashes;
+
+        private final AtomicLongArray words;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Layer(int capacity, double fpp) {
+            this.capacity = capacity;
+            this.fpp = fpp;
+            this.bits = Math.max(64, (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+            this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((bits + 63) >>> 6));
+        }
+
+        private boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        private void add(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+
+            count.incrementAndGet();
+        }
+
+        private boolean mightContain(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private double currentFpp() {
+            return Math.pow(1 - Math.exp(-(double) hashes * count.get() / bits), hashes);
+        }
+    }
+}
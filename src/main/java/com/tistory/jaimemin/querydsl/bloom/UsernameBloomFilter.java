@@ -0,0 +1,177 @@
+package com.tistory.jaimemin.querydsl.bloom;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 존재하는 username의 Bloom filter. 필터가 없다고 판정한 username 조회는 DB에 가지 않는다
+ * 시작 시 member를 스트리밍으로 읽어 만들고, 저장/수정 시(@PrePersist, @PreUpdate) 추가한다
+ * 삭제는 반영할 수 없으므로 주기적으로 다시 만든다
+ * 다른 인스턴스나 JPA를 거치지 않은 경로로 추가된 username은 다음 재구성까지 필터에 없으므로,
+ * 이 인스턴스만 member를 쓰는 경우(member.username-filter.single-writer=true)에만 사용한다. 꺼져 있으면 항상 조회한다
+ */
+@Slf4j
+@Component
+public class UsernameBloomFilter {
+
+    private static final String SCAN_SQL = "SELECT username FROM member WHERE username IS NOT NULL";
+
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int expectedInsertions;
+
+    private final double fpp;
+
+    private final boolean singleWriter;
+
+    private volatile ScalableBloomFilter filter;
+
+    // 직전 재구성 시작 이후 추가된 username. 재구성 스캔 시점에 아직 커밋되지 않았을 수 있어 새 필터에 다시 넣는다
+    private List<String> recentlyAdded = new ArrayList<>();
+
+    private boolean rebuilding;
+
+    private final AtomicLong lookups = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public UsernameBloomFilter(JdbcTemplate jdbcTemplate,
+                               @Value("${member.username-filter.expected-insertions:100000}") int expectedInsertions,
+                               @Value("${member.username-filter.fpp:0.01}") double fpp,
+                               @Value("${member.username-filter.single-writer:false}") boolean singleWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.singleWriter = singleWriter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${member.username-filter.rebuild-interval-ms:600000}",
+            initialDelayString = "${member.username-filter.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!singleWriter) {
+            return;
+        }
+
+        List<String> carried;
+
+        synchronized (this) {
+            if (rebuilding) {
+                return;
+            }
+
+            rebuilding = true;
+            carried = recentlyAdded;
+            recentlyAdded = new ArrayList<>();
+        }
+
+        ScalableBloomFilter next = new ScalableBloomFilter(expectedInsertions, fpp);
+        boolean completed = false;
+
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SCAN_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(SCAN_FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> next.add(resultSet.getString(1)));
+            completed = true;
+        } catch (RuntimeException e) {
+            log.warn("username bloom filter rebuild failed", e);
+        } finally {
+            synchronized (this) {
+                if (completed) {
+                    carried.forEach(next::add);
+                    recentlyAdded.forEach(next::add);
+                    filter = next;
+                } else {
+                    carried.addAll(recentlyAdded);
+                    recentlyAdded = carried;
+                }
+
+                rebuilding = false;
+            }
+        }
+    }
+
+    public synchronized void add(String username) {
+        if (username == null || !singleWriter) {
+            return;
+        }
+
+        if (filter != null) {
+            filter.add(username);
+        }
+
+        recentlyAdded.add(username);
+    }
+
+    /**
+     * 필터가 없다고 판정하면 조회하지 않고 빈 목록을 돌려준다
+     * 단일 writer 설정이 아니거나, 필터를 아직 만들지 못했거나, 쓰기 트랜잭션 안(커밋 전 변경이 있을 수 있음)이면 그대로 조회한다
+     *
+     * @param username
+     * @param lookup
+     * @param <T>
+     * @return
+     */
+    public <T> List<T> guard(String username, Supplier<List<T>> lookup) {
+        ScalableBloomFilter current = filter;
+
+        if (current == null || username == null || !isReadOnlyContext()) {
+            return lookup.get();
+        }
+
+        lookups.incrementAndGet();
+
+        if (!current.mightContain(username)) {
+            rejected.incrementAndGet();
+            return Collections.emptyList();
+        }
+
+        List<T> result = lookup.get();
+
+        if (result.isEmpty()) {
+            falsePositives.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    public UsernameFilterStats getStats() {
+        ScalableBloomFilter current = filter;
+        long falsePositive = falsePositives.get();
+        long absent = falsePositive + rejected.get();
+
+        return new UsernameFilterStats(current != null, lookups.get(), rejected.get(), falsePositive,
+                absent == 0 ? 0.0 : (double) falsePositive / absent,
+                current == null ? 0.0 : current.expectedFpp(),
+                current == null ? 0L : current.size(),
+                current == null ? 0L : current.bitSize(),
+                current == null ? 0 : current.layerCount());
+    }
+
+    private static boolean isReadOnlyContext() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
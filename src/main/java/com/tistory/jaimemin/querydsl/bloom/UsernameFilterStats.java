@@ -0,0 +1,42 @@
+package com.tistory.jaimemin.querydsl.bloom;
+
+import lombok.Data;
+
+@Data
+public class UsernameFilterStats {
+
+    private boolean loaded;
+
+    private long lookups;
+
+    // 필터가 없다고 판정해 DB 조회를 생략한 횟수
+    private long rejected;
+
+    // 필터는 통과했지만 DB에 없던 횟수
+    private long falsePositives;
+
+    // 실제로 없는 username 중 필터를 통과한 비율 = falsePositives / (falsePositives + rejected)
+    private double falsePositiveRate;
+
+    private double expectedFalsePositiveRate;
+
+    private long entries;
+
+    private long bits;
+
+    private int layers;
+
+    public UsernameFilterStats(boolean loaded, long lookups, long rejected, long falsePositives,
+                               double falsePositiveRate, double expectedFalsePositiveRate,
+                               long entries, long bits, int layers) {
+        this.loaded = loaded;
+        this.lookups = lookups;
+        this.rejected = rejected;
+        this.falsePositives = falsePositives;
+        this.falsePositiveRate = falsePositiveRate;
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+        this.entries = entries;
+        this.bits = bits;
+        this.layers = layers;
+    }
+}
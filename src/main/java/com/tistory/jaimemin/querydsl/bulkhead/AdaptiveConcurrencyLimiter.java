@@ -0,0 +1,154 @@
+package com.tistory.jaimemin.querydsl.bulkhead;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 엔드포인트 하나의 동시 실행 수와 대기열을 제한한다
+ * limit은 커넥션 풀 대기 시간에 따라 AIMD(혼잡하면 줄이고, 여유 있으면 1씩 늘림)로 조정된다
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Result {
+        ACQUIRED, QUEUE_FULL, TIMED_OUT
+    }
+
+    @Getter
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int maxQueue;
+
+    private final long maxWaitMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    private volatile int limit;
+
+    private int inFlight;
+
+    private int waiting;
+
+    private int peakInFlight;
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+
+    private final AtomicLong rejectedTimeout = new AtomicLong();
+
+    public AdaptiveConcurrencyLimiter(String name, int minLimit, int maxLimit, int maxQueue, long maxWaitMs) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitMs = maxWaitMs;
+        this.limit = maxLimit;
+    }
+
+    public Result acquire() throws InterruptedException {
+        lock.lock();
+
+        try {
+            if (inFlight < limit) {
+                return admit();
+            }
+
+            if (waiting >= maxQueue) {
+                rejectedQueueFull.incrementAndGet();
+                return Result.QUEUE_FULL;
+            }
+
+            waiting++;
+
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+
+                while (inFlight >= limit) {
+                    if (remaining <= 0) {
+                        rejectedTimeout.incrementAndGet();
+                        return Result.TIMED_OUT;
+                    }
+
+                    remaining = released.awaitNanos(remaining);
+                }
+
+                return admit();
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+
+        try {
+            inFlight--;
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 혼잡하면 limit을 10% 줄이고, 직전 주기에 limit까지 사용했으면 1 늘린다
+     *
+     * @param congested
+     */
+    public void adjust(boolean congested) {
+        lock.lock();
+
+        try {
+            if (congested) {
+                limit = Math.max(minLimit, (int) (limit * 0.9));
+            } else if (peakInFlight >= limit && limit < maxLimit) {
+                limit++;
+                released.signal();
+            }
+
+            peakInFlight = inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 거절 응답의 Retry-After(초). 최대 대기 시간을 올림한 값
+     *
+     * @return
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMs + 999));
+    }
+
+    public BulkheadStats getStats() {
+        lock.lock();
+
+        try {
+            return new BulkheadStats(name, limit, inFlight, waiting, accepted.get(),
+                    rejectedQueueFull.get(), rejectedTimeout.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Result admit() {
+        inFlight++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+        accepted.incrementAndGet();
+
+        return Result.ACQUIRED;
+    }
+}
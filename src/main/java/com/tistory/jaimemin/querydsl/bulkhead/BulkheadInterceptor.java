@@ -0,0 +1,59 @@
+package com.tistory.jaimemin.querydsl.bulkhead;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 엔드포인트별 bulkhead. 자리가 없으면 컨트롤러까지 가지 않고 바로 429/503으로 응답한다
+ * 비동기 요청은 async dispatch에서 preHandle이 다시 호출되므로 요청 속성으로 중복 획득을 막는다
+ */
+@RequiredArgsConstructor
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (request.getAttribute(permitAttribute()) != null) {
+            return true;
+        }
+
+        AdaptiveConcurrencyLimiter.Result result;
+
+        try {
+            result = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = AdaptiveConcurrencyLimiter.Result.TIMED_OUT;
+        }
+
+        if (result == AdaptiveConcurrencyLimiter.Result.ACQUIRED) {
+            request.setAttribute(permitAttribute(), Boolean.TRUE);
+            return true;
+        }
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.retryAfterSeconds()));
+        response.sendError(result == AdaptiveConcurrencyLimiter.Result.QUEUE_FULL
+                ? HttpStatus.TOO_MANY_REQUESTS.value()
+                : HttpStatus.SERVICE_UNAVAILABLE.value());
+
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(permitAttribute()) != null) {
+            request.removeAttribute(permitAttribute());
+            limiter.release();
+        }
+    }
+
+    private String permitAttribute() {
+        return BulkheadInterceptor.class.getName() + "." + limiter.getName();
+    }
+}
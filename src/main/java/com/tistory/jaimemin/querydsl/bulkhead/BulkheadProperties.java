@@ -0,0 +1,31 @@
+package com.tistory.jaimemin.querydsl.bulkhead;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "member.bulkhead")
+public class BulkheadProperties {
+
+    // 커넥션 획득 평균 대기 시간이 이 값을 넘으면 혼잡으로 보고 limit을 줄인다
+    private long targetPoolWaitMs = 20;
+
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    @Data
+    public static class Endpoint {
+
+        private String path;
+
+        private int minConcurrency = 1;
+
+        private int maxConcurrency = 10;
+
+        private int maxQueue = 20;
+
+        private long maxWaitMs = 500;
+    }
+}
@@ -0,0 +1,71 @@
+package com.tistory.jaimemin.querydsl.bulkhead;
+
+import lombok.Getter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * member.bulkhead.endpoints 설정으로 만든 limiter 목록
+ * 주기적으로 커넥션 풀 대기 시간을 보고 limit을 조정한다
+ */
+@Component
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadRegistry {
+
+    private final BulkheadProperties properties;
+
+    private final PoolWaitTimeTracker poolWaitTimeTracker;
+
+    @Getter
+    private final List<Bulkhead> bulkheads = new ArrayList<>();
+
+    @Getter
+    private volatile double lastPoolWaitMs;
+
+    public BulkheadRegistry(BulkheadProperties properties, PoolWaitTimeTracker poolWaitTimeTracker) {
+        this.properties = properties;
+        this.poolWaitTimeTracker = poolWaitTimeTracker;
+
+        for (Map.Entry<String, BulkheadProperties.Endpoint> entry : properties.getEndpoints().entrySet()) {
+            BulkheadProperties.Endpoint endpoint = entry.getValue();
+            bulkheads.add(new Bulkhead(endpoint.getPath(), new AdaptiveConcurrencyLimiter(entry.getKey()
+                    , endpoint.getMinConcurrency()
+                    , endpoint.getMaxConcurrency()
+                    , endpoint.getMaxQueue()
+                    , endpoint.getMaxWaitMs())));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${member.bulkhead.adjust-interval-ms:1000}")
+    public void adjustLimits() {
+        lastPoolWaitMs = poolWaitTimeTracker.drainAverageWaitMs();
+        boolean congested = lastPoolWaitMs > properties.getTargetPoolWaitMs();
+
+        bulkheads.forEach(bulkhead -> bulkhead.getLimiter().adjust(congested));
+    }
+
+    public List<BulkheadStats> getStats() {
+        return bulkheads.stream()
+                .map(bulkhead -> bulkhead.getLimiter().getStats())
+                .collect(Collectors.toList());
+    }
+
+    @Getter
+    public static class Bulkhead {
+
+        private final String path;
+
+        private final AdaptiveConcurrencyLimiter limiter;
+
+        Bulkhead(String path, AdaptiveConcurrencyLimiter limiter) {
+            this.path = path;
+            this.limiter = limiter;
+        }
+    }
+}
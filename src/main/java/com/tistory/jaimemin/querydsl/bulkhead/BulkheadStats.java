@@ -0,0 +1,32 @@
+package com.tistory.jaimemin.querydsl.bulkhead;
+
+import lombok.Data;
+
+@Data
+public class BulkheadStats {
+
+    private String name;
+
+    private int limit;
+
+    private int inFlight;
+
+    private int waiting;
+
+    private long accepted;
+
+    private long rejectedQueueFull;
+
+    private long rejectedTimeout;
+
+    public BulkheadStats(String name, int limit, int inFlight, int waiting, long accepted,
+                         long rejectedQueueFull, long rejectedTimeout) {
+        this.name = name;
+        this.limit = limit;
+        this.inFlight = inFlight;
+        this.waiting = waiting;
+        this.accepted = accepted;
+        this.rejectedQueueFull = rejectedQueueFull;
+        this.rejectedTimeout = rejectedTimeout;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tistory.jaimemin.querydsl.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hikari 풀의 커넥션 획득 대기 시간을 모은다
+ * 풀이 시작되기 전에 metrics tracker를 붙여야 하므로 BeanPostProcessor로 등록한다
+ */
+@Component
+public class PoolWaitTimeTracker implements BeanPostProcessor {
+
+    private final LongAdder acquiredCount = new LongAdder();
+
+    private final LongAdder acquiredNanos = new LongAdder();
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource && ((HikariDataSource) bean).getMetricsTrackerFactory() == null) {
+            ((HikariDataSource) bean).setMetricsTrackerFactory((poolName, poolStats) -> new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    acquiredCount.increment();
+                    acquiredNanos.add(elapsedAcquiredNanos);
+                }
+            });
+        }
+
+        return bean;
+    }
+
+    /**
+     * 직전 호출 이후 평균 대기 시간(ms)을 돌려주고 초기화한다
+     *
+     * @return
+     */
+    public double drainAverageWaitMs() {
+        long count = acquiredCount.sumThenReset();
+        long nanos = acquiredNanos.sumThenReset();
+
+        return count == 0 ? 0.0 : (double) TimeUnit.NANOSECONDS.toMicros(nanos) / count / 1_000.0;
+    }
+}
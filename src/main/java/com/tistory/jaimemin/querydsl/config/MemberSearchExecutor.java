@@ -0,0 +1,63 @@
+package com.tistory.jaimemin.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비동기 컨트롤러에서 repository 호출을 실행할 executor
+ * platform: 커넥션 풀 크기만큼의 스레드 풀, virtual: JDK 21 이상에서 작업마다 virtual thread
+ * Executor 빈으로 노출하면 Boot의 applicationTaskExecutor가 빠지므로 감싸서 등록한다
+ */
+@Slf4j
+@Component
+public class MemberSearchExecutor {
+
+    private final ExecutorService executorService;
+
+    public MemberSearchExecutor(@Value("${member.async.executor:platform}") String type,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.executorService = "virtual".equalsIgnoreCase(type)
+                ? virtualThreadExecutor(poolSize)
+                : platformThreadExecutor(poolSize);
+    }
+
+    public Future<?> submit(Runnable task) {
+        return executorService.submit(task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    private static ExecutorService virtualThreadExecutor(int poolSize) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("virtual threads are not available on this JDK, falling back to a platform thread pool");
+            return platformThreadExecutor(poolSize);
+        }
+    }
+
+    private static ExecutorService platformThreadExecutor(int poolSize) {
+        AtomicInteger sequence = new AtomicInteger();
+
+        return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * 10),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "member-search-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
@@ -0,0 +1,56 @@
+package com.tistory.jaimemin.querydsl.config;
+
+import com.tistory.jaimemin.querydsl.repository.support.QueryDeadline;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * X-Request-Timeout-Ms 헤더(없으면 기본값, 최댓값으로 제한)로 요청의 쿼리 deadline을 정한다
+ */
+public class QueryDeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private final long defaultTimeoutMs;
+
+    private final long maxTimeoutMs;
+
+    public QueryDeadlineInterceptor(long defaultTimeoutMs, long maxTimeoutMs) {
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryDeadline.start(Math.min(requestedTimeoutMs(request), maxTimeoutMs));
+
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryDeadline.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryDeadline.clear();
+    }
+
+    private long requestedTimeoutMs(HttpServletRequest request) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+
+        if (!StringUtils.hasText(header)) {
+            return defaultTimeoutMs;
+        }
+
+        try {
+            return Math.max(1, Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            return defaultTimeoutMs;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.tistory.jaimemin.querydsl.config;
+
+import com.tistory.jaimemin.querydsl.bulkhead.BulkheadInterceptor;
+import com.tistory.jaimemin.querydsl.bulkhead.BulkheadRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    private final long defaultQueryTimeoutMs;
+
+    private final long maxQueryTimeoutMs;
+
+    public WebConfig(BulkheadRegistry bulkheadRegistry,
+                     @Value("${member.query.default-timeout-ms:3000}") long defaultQueryTimeoutMs,
+                     @Value("${member.query.max-timeout-ms:10000}") long maxQueryTimeoutMs) {
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.defaultQueryTimeoutMs = defaultQueryTimeoutMs;
+        this.maxQueryTimeoutMs = maxQueryTimeoutMs;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        for (BulkheadRegistry.Bulkhead bulkhead : bulkheadRegistry.getBulkheads()) {
+            registry.addInterceptor(new BulkheadInterceptor(bulkhead.getLimiter()))
+                    .addPathPatterns(bulkhead.getPath());
+        }
+
+        registry.addInterceptor(new QueryDeadlineInterceptor(defaultQueryTimeoutMs, maxQueryTimeoutMs));
+    }
+}
@@ -0,0 +1,21 @@
+package com.tistory.jaimemin.querydsl.controller;
+
+import com.tistory.jaimemin.querydsl.bulkhead.BulkheadRegistry;
+import com.tistory.jaimemin.querydsl.bulkhead.BulkheadStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class BulkheadController {
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    @GetMapping("/bulkheads")
+    public List<BulkheadStats> bulkheads() {
+        return bulkheadRegistry.getStats();
+    }
+}
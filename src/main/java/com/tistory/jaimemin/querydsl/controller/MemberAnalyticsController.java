@@ -0,0 +1,77 @@
+package com.tistory.jaimemin.querydsl.controller;
+
+import com.tistory.jaimemin.querydsl.analytics.MemberColumnSnapshot;
+import com.tistory.jaimemin.querydsl.analytics.TeamAgeStats;
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DB 대신 MemberColumnSnapshot으로 계산하는 member 집계
+ * 커밋된 변경은 바로 반영되지만 bulk 연산 직후에는 다시 읽는 동안 잠시 이전 값이 보일 수 있다
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberAnalyticsController {
+
+    private final MemberColumnSnapshot memberColumnSnapshot;
+
+    @GetMapping("/members/analytics/team-stats")
+    public List<TeamAgeStats> teamStats() {
+        return memberColumnSnapshot.teamStats();
+    }
+
+    /**
+     * percentiles=50,90,99 처럼 받아 p50, p90, p99 순서로 응답한다. 맞는 회원이 없으면 값이 null
+     *
+     * @param condition
+     * @param percentiles
+     * @return
+     */
+    @GetMapping("/members/analytics/age-percentiles")
+    public Map<String, Integer> agePercentiles(MemberSearchCondition condition,
+                                               @RequestParam(defaultValue = "50,90,99") double[] percentiles) {
+        int[] values = memberColumnSnapshot.agePercentiles(percentiles, condition);
+        Map<String, Integer> result = new LinkedHashMap<>();
+
+        for (int i = 0; i < percentiles.length; i++) {
+            result.put("p" + format(percentiles[i]), values == null ? null : values[i]);
+        }
+
+        return result;
+    }
+
+    @GetMapping("/members/analytics/count")
+    public long count(MemberSearchCondition condition) {
+        return memberColumnSnapshot.count(condition);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> unsupportedCondition(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    /**
+     * 사본이나 팀명 사전을 아직 읽지 못한 경우
+     *
+     * @param e
+     * @return
+     */
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> snapshotNotReady(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
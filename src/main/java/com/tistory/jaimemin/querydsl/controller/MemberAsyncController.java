@@ -0,0 +1,73 @@
+package com.tistory.jaimemin.querydsl.controller;
+
+import com.tistory.jaimemin.querydsl.config.MemberSearchExecutor;
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import com.tistory.jaimemin.querydsl.repository.MemberJpaRepository;
+import com.tistory.jaimemin.querydsl.repository.MemberRepository;
+import com.tistory.jaimemin.querydsl.repository.support.QueryDeadline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 서블릿 스레드를 DB 왕복 동안 붙잡지 않는 비동기 검색
+ * 클라이언트 연결이 끊기거나 시간이 초과되면 아직 실행 전인 작업은 취소된다
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberAsyncController {
+
+    private final MemberRepository memberRepository;
+
+    private final MemberJpaRepository memberJpaRepository;
+
+    private final MemberSearchExecutor memberSearchExecutor;
+
+    @GetMapping("/async/v1/members")
+    public DeferredResult<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition) {
+        return submit(() -> memberJpaRepository.search(condition));
+    }
+
+    @GetMapping("/async/v3/members")
+    public DeferredResult<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+        return submit(() -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    private <T> DeferredResult<T> submit(Callable<T> search) {
+        Long remaining = QueryDeadline.remainingMillis();
+        DeferredResult<T> result = remaining == null
+                ? new DeferredResult<>()
+                : new DeferredResult<>(Math.max(1, remaining), ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        Callable<T> task = QueryDeadline.propagate(search);
+        Future<?> future;
+
+        try {
+            future = memberSearchExecutor.submit(() -> {
+                try {
+                    result.setResult(task.call());
+                } catch (Exception e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.setErrorResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+            return result;
+        }
+
+        result.onTimeout(() -> future.cancel(true));
+        result.onError(throwable -> future.cancel(true));
+
+        return result;
+    }
+}
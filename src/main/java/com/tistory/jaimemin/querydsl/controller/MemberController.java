@@ -1,16 +1,59 @@
 package com.tistory.jaimemin.querydsl.controller;
 
+import com.tistory.jaimemin.querydsl.admission.AdmissionStats;
+import com.tistory.jaimemin.querydsl.admission.SearchAdmissionController;
+import com.tistory.jaimemin.querydsl.bloom.UsernameBloomFilter;
+import com.tistory.jaimemin.querydsl.bloom.UsernameFilterStats;
+import com.tistory.jaimemin.querydsl.config.MessageConverterConfig;
+import com.tistory.jaimemin.querydsl.dictionary.TeamNameDictionary;
+import com.tistory.jaimemin.querydsl.dto.AgeHistogramDto;
+import com.tistory.jaimemin.querydsl.dto.MemberChangesDto;
 import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
 import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import com.tistory.jaimemin.querydsl.dto.PartialPageDto;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.Team;
+import com.tistory.jaimemin.querydsl.loader.MemberBatchLoader;
+import com.tistory.jaimemin.querydsl.prefetch.MemberPagePrefetcher;
+import com.tistory.jaimemin.querydsl.prefetch.PrefetchStats;
+import com.tistory.jaimemin.querydsl.repository.CountDeadlineExceededException;
 import com.tistory.jaimemin.querydsl.repository.MemberJpaRepository;
 import com.tistory.jaimemin.querydsl.repository.MemberRepository;
+import com.tistory.jaimemin.querydsl.repository.MemberSearchField;
+import com.tistory.jaimemin.querydsl.repository.MemberSqlRepository;
+import com.tistory.jaimemin.querydsl.version.ChangeVersionGenerator;
+import com.tistory.jaimemin.querydsl.version.TableVersionCounters;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
@@ -20,18 +63,326 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
 
+    private final MemberPagePrefetcher memberPagePrefetcher;
+
+    private final TableVersionCounters tableVersionCounters;
+
+    private final ChangeVersionGenerator changeVersionGenerator;
+
+    private final SearchAdmissionController searchAdmissionController;
+
+    private final MemberSqlRepository memberSqlRepository;
+
+    private final UsernameBloomFilter usernameBloomFilter;
+
+    private final MemberBatchLoader memberBatchLoader;
+
+    private final TeamNameDictionary teamNameDictionary;
+
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    @Value("${member.search.engine:jpa}")
+    private String defaultEngine;
+
+    @Value("${member.batch.max-conditions:50}")
+    private int maxBatchConditions;
+
+    /**
+     * If-None-Match가 현재 ETag와 같으면 DB 조회 없이 304를 응답한다
+     * engine=sql이면 Hibernate를 거치지 않는 querydsl-sql 경로로 조회한다
+     *
+     * @param condition
+     * @param engine
+     * @param webRequest
+     * @return
+     */
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition,
+                                              @RequestParam(required = false) String engine,
+                                              WebRequest webRequest) {
+        if (notModified(webRequest, "v1", condition)) {
+            return null;
+        }
+
+        boolean sql = isSqlEngine(engine);
+
+        return searchAdmissionController.admit(condition, () -> sql
+                        ? memberSqlRepository.search(condition)
+                        : memberJpaRepository.search(condition)
+                , List::size);
+    }
+
+    /**
+     * 여러 검색 조건을 한 번에 받아 조건 형태별 쿼리 하나씩으로 조회한다
+     * 응답은 요청한 조건 순서대로의 결과 목록이다
+     *
+     * @param conditions
+     * @return
+     */
+    @PostMapping("/v1/members/batch")
+    public List<List<MemberTeamDto>> searchMembersBatch(@RequestBody List<MemberSearchCondition> conditions) {
+        if (conditions.size() > maxBatchConditions) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "too many conditions: " + conditions.size() + " > " + maxBatchConditions);
+        }
+
+        return memberRepository.searchBatch(conditions.stream()
+                .map(condition -> condition == null ? new MemberSearchCondition() : condition)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * fields=memberId,username 처럼 요청한 컬럼만 조회해서 응답한다
+     *
+     * @param condition
+     * @param fields
+     * @param webRequest
+     * @return
+     */
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<Map<String, Object>> searchMemberFieldsV1(MemberSearchCondition condition,
+                                                          @RequestParam String fields,
+                                                          WebRequest webRequest) {
+        List<MemberSearchField> searchFields = parseFields(fields);
+
+        if (notModified(webRequest, "v1", condition, searchFields)) {
+            return null;
+        }
+
+        return memberRepository.searchFields(condition, searchFields);
+    }
+
+    /**
+     * since 이후 생성, 수정, 삭제된 회원만 돌려주는 delta 동기화
+     * 응답의 version을 다음 요청의 since로 사용한다. 발급된 최댓값이 아니라 커밋이 끝난 버전이라 늦게 커밋되는 변경도 다음 요청에 포함된다
+     * 버전을 먼저 읽고 조회하므로 그 이후 커밋된 변경은 다음 요청에서 한 번 더 올 수 있다 (같은 값으로 덮어쓰면 된다)
+     *
+     * @param condition
+     * @param since
+     * @return
+     */
+    @GetMapping("/v1/members/changes")
+    public MemberChangesDto searchMemberChanges(MemberSearchCondition condition,
+                                                @RequestParam(defaultValue = "0") long since) {
+        long version = changeVersionGenerator.committed();
+        List<MemberTeamDto> changed = memberRepository.searchChangedSince(condition, since);
+        Set<Long> matched = changed.stream()
+                .map(MemberTeamDto::getMemberId)
+                .collect(Collectors.toSet());
+        List<Long> leftMemberIds = memberRepository.findLeftMemberIdsSince(condition, since).stream()
+                .filter(memberId -> !matched.contains(memberId))
+                .collect(Collectors.toList());
+
+        return new MemberChangesDto(version
+                , changed
+                , memberRepository.findDeletedMemberIdsSince(since)
+                , leftMemberIds);
+    }
+
+    /**
+     * id마다 findById를 부르는 대신 요청 단위 로더로 모아서 한 번에 조회한다
+     * 팀명은 사전에서 채워 team 프록시를 초기화하지 않는다
+     *
+     * @param ids
+     * @return 요청한 순서대로, 없는 id는 빠진다
+     */
+    @GetMapping("/v1/members/by-ids")
+    public List<MemberTeamDto> findMembersByIds(@RequestParam List<Long> ids) {
+        List<CompletableFuture<Optional<Member>>> futures = new ArrayList<>(ids.size());
+
+        for (Long id : ids) {
+            futures.add(memberBatchLoader.load(id));
+        }
+
+        memberBatchLoader.dispatch();
+
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .map(this::toMemberTeamDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * bounds=20,30,40 처럼 경계를 받아 구간별 회원 수를 DB의 group by 한 번으로 구한다
+     *
+     * @param condition
+     * @param bounds
+     * @return
+     */
+    @GetMapping("/v1/members/age-histogram")
+    public AgeHistogramDto ageHistogram(MemberSearchCondition condition, @RequestParam int[] bounds) {
+        try {
+            return new AgeHistogramDto(bounds, memberRepository.ageHistogram(condition, bounds));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest webRequest) {
+        if (notModified(webRequest, "v2", condition, pageable)) {
+            return null;
+        }
+
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean prefetch,
+                                              @RequestParam(required = false) String engine,
+                                              WebRequest webRequest) {
+        if (notModified(webRequest, "v3", condition, pageable)) {
+            return null;
+        }
+
+        boolean sql = isSqlEngine(engine);
+
+        return searchAdmissionController.admit(condition, () -> {
+            if (prefetch) {
+                return memberPagePrefetcher.searchPageComplex(condition, pageable, sql);
+            }
+
+            return sql
+                    ? memberSqlRepository.searchPageComplex(condition, pageable)
+                    : memberRepository.searchPageComplex(condition, pageable);
+        }, Page::getTotalElements);
+    }
+
+    @GetMapping(value = "/v3/members", params = "fields")
+    public Page<Map<String, Object>> searchMemberFieldsV3(MemberSearchCondition condition, Pageable pageable,
+                                                          @RequestParam String fields,
+                                                          WebRequest webRequest) {
+        List<MemberSearchField> searchFields = parseFields(fields);
+
+        if (notModified(webRequest, "v3", condition, pageable, searchFields)) {
+            return null;
+        }
+
+        return memberRepository.searchPageFields(condition, searchFields, pageable);
+    }
+
+    @GetMapping("/members/admission-stats")
+    public AdmissionStats admissionStats() {
+        return searchAdmissionController.getStats();
+    }
+
+    @GetMapping("/members/username-filter-stats")
+    public UsernameFilterStats usernameFilterStats() {
+        return usernameBloomFilter.getStats();
+    }
+
+    @GetMapping("/v3/members/prefetch-stats")
+    public PrefetchStats prefetchStats() {
+        return memberPagePrefetcher.getStats();
+    }
+
+    /**
+     * 본문은 조회했지만 count가 deadline을 넘기면 total 없이 totalKnown=false로 응답한다
+     * Range 요청에 대한 응답이 아니므로 206이 아닌 200이다
+     *
+     * @param e
+     * @return
+     */
+    @ExceptionHandler(CountDeadlineExceededException.class)
+    public ResponseEntity<PartialPageDto> countDeadlineExceeded(CountDeadlineExceededException e) {
+        return ResponseEntity.ok(new PartialPageDto(e.getContent(), e.getPageable().getPageNumber(), e.getPageable().getPageSize()));
+    }
+
+    @ExceptionHandler({QueryTimeoutException.class, javax.persistence.QueryTimeoutException.class})
+    public ResponseEntity<Void> queryDeadlineExceeded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    /**
+     * JSON과 Smile 응답이 같은 ETag를 쓰지 않도록 협상될 media type을 ETag에 섞고 Vary: Accept를 붙인다
+     * 버전 카운터가 다른 인스턴스의 쓰기를 볼 수 없는 설정이면 ETag 없이 항상 응답한다
+     *
+     * @param webRequest
+     * @param resource
+     * @param condition
+     * @param extra
+     * @return
+     */
+    private boolean notModified(WebRequest webRequest, String resource, MemberSearchCondition condition, Object... extra) {
+        if (!tableVersionCounters.isEnabled()) {
+            return false;
+        }
+
+        NativeWebRequest nativeWebRequest = (NativeWebRequest) webRequest;
+        HttpServletResponse response = nativeWebRequest.getNativeResponse(HttpServletResponse.class);
+
+        if (response != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+
+        Object[] parts = Arrays.copyOf(extra, extra.length + 1);
+        parts[extra.length] = negotiatedMediaType(nativeWebRequest);
+
+        return webRequest.checkNotModified(tableVersionCounters.etag(resource, condition, parts));
+    }
+
+    /**
+     * Accept를 선호 순서대로 보며 JSON과 Smile 중 먼저 맞는 쪽. 와일드카드는 먼저 등록된 JSON 컨버터가 선택된다
+     *
+     * @param webRequest
+     * @return
+     */
+    private MediaType negotiatedMediaType(NativeWebRequest webRequest) {
+        List<MediaType> accepted;
+
+        try {
+            accepted = contentNegotiationManager.resolveMediaTypes(webRequest);
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+
+        for (MediaType mediaType : accepted) {
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+
+            if (mediaType.isCompatibleWith(MessageConverterConfig.SMILE)) {
+                return MessageConverterConfig.SMILE;
+            }
+        }
+
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private MemberTeamDto toMemberTeamDto(Member member) {
+        Team team = member.getTeam();
+        Long teamId = team == null ? null : team.getId();
+        String teamName = teamNameDictionary.teamName(teamId);
+
+        if (team != null && teamName == null) {
+            teamName = team.getName();
+        }
+
+        return new MemberTeamDto(member.getId(), member.getUsername(), member.getAge(), teamId, teamName);
+    }
+
+    private boolean isSqlEngine(String engine) {
+        String selected = StringUtils.hasText(engine) ? engine : defaultEngine;
+
+        if ("sql".equalsIgnoreCase(selected)) {
+            return true;
+        }
+
+        if ("jpa".equalsIgnoreCase(selected)) {
+            return false;
+        }
+
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown search engine: " + selected);
+    }
+
+    private List<MemberSearchField> parseFields(String fields) {
+        try {
+            return MemberSearchField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 }
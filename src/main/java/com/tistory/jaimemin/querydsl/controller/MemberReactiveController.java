@@ -0,0 +1,28 @@
+package com.tistory.jaimemin.querydsl.controller;
+
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import com.tistory.jaimemin.querydsl.repository.MemberReactiveRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberReactiveController {
+
+    private final MemberReactiveRepository memberReactiveRepository;
+
+    /**
+     * application/x-ndjson으로 요청하면 행 단위로 스트리밍한다
+     *
+     * @param condition
+     * @return
+     */
+    @GetMapping(value = "/reactive/members", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<MemberTeamDto> searchMember(MemberSearchCondition condition) {
+        return memberReactiveRepository.search(condition);
+    }
+}
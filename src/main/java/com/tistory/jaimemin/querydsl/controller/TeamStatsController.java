@@ -0,0 +1,37 @@
+package com.tistory.jaimemin.querydsl.controller;
+
+import com.tistory.jaimemin.querydsl.dto.TeamStatsCheckDto;
+import com.tistory.jaimemin.querydsl.dto.TeamStatsDto;
+import com.tistory.jaimemin.querydsl.repository.TeamStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamStatsController {
+
+    private final TeamStatsRepository teamStatsRepository;
+
+    /**
+     * member를 group by 하지 않고 team_stats에서 읽는다
+     *
+     * @return
+     */
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsRepository.findAll();
+    }
+
+    /**
+     * team_stats를 member 집계와 비교한다. 운영 중 점검용으로 전체 집계를 실행한다
+     *
+     * @return
+     */
+    @GetMapping("/teams/stats/check")
+    public TeamStatsCheckDto checkTeamStats() {
+        return teamStatsRepository.check();
+    }
+}
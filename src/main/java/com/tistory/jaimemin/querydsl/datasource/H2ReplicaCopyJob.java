@@ -0,0 +1,48 @@
+package com.tistory.jaimemin.querydsl.datasource;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * 로컬 테스트용 복제 작업
+ * primary H2의 SCRIPT 결과를 replica H2에 그대로 다시 실행한다
+ * DROP ALL OBJECTS 전에 replica로 라우팅된 커넥션이 모두 닫히기를 기다려, 읽는 도중 테이블이 사라지지 않게 한다
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class H2ReplicaCopyJob {
+
+    private final DataSource primary;
+
+    private final List<ReplicaDataSource> replicas;
+
+    private final RoutingDataSourceProperties properties;
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.copy-interval-ms:1000}")
+    public void copy() {
+        long snapshotAt = System.currentTimeMillis();
+        List<String> statements = new JdbcTemplate(primary).queryForList("SCRIPT", String.class);
+
+        for (ReplicaDataSource replica : replicas) {
+            if (!replica.drain(properties.getDrainTimeoutMs())) {
+                log.warn("replica still in use, copy skipped. replica={}", replica.getName());
+                continue;
+            }
+
+            try {
+                JdbcTemplate replicaTemplate = new JdbcTemplate(replica.getDataSource());
+                replicaTemplate.execute("DROP ALL OBJECTS");
+                replicaTemplate.batchUpdate(statements.toArray(new String[0]));
+                replica.markReplicated(snapshotAt);
+            } catch (RuntimeException e) {
+                replica.markFailed();
+                log.warn("replica copy failed. replica={}", replica.getName(), e);
+            }
+        }
+    }
+}
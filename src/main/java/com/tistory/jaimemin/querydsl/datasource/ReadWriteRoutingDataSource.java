@@ -0,0 +1,135 @@
+package com.tistory.jaimemin.querydsl.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * readOnly 트랜잭션은 replica로, 나머지는 primary로 보낸다
+ * LazyConnectionDataSourceProxy로 감싸서 트랜잭션의 readOnly 여부가 정해진 뒤 커넥션을 얻어야 한다
+ * replica 커넥션은 lease를 얻어야 받을 수 있으며, 복사가 시작되어 얻지 못하면 primary로 보낸다
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final String WRITE_SYNCHRONIZATION = ReadWriteRoutingDataSource.class.getName() + ".WRITE";
+
+    private final DataSource primary;
+
+    private final List<ReplicaDataSource> replicas;
+
+    private final Map<String, ReplicaDataSource> replicasByName = new HashMap<>();
+
+    private final RoutingDataSourceProperties properties;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<ReplicaDataSource> replicas,
+                                      RoutingDataSourceProperties properties) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.properties = properties;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> {
+            targets.put(replica.getName(), replica.getDataSource());
+            replicasByName.put(replica.getName(), replica);
+        });
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * 라우팅 대상인 primary와 replica들의 DataSource (풀 상태 확인용)
+     *
+     * @return
+     */
+    public List<DataSource> getTargets() {
+        List<DataSource> targets = new ArrayList<>();
+        targets.add(primary);
+        replicas.forEach(replica -> targets.add(replica.getDataSource()));
+
+        return targets;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReplicaDataSource replica = replicasByName.get(determineCurrentLookupKey());
+
+        if (replica != null && replica.tryAcquire()) {
+            return replica.leasedConnection();
+        }
+
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // replica는 설정된 계정으로만 연결하므로 계정을 지정하면 primary로 보낸다
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registerWriteSynchronization();
+            return PRIMARY;
+        }
+
+        long now = System.currentTimeMillis();
+        long lastWriteAt = ReadYourWritesContext.lastWriteAt(now, properties.getMaxLagMs());
+        List<ReplicaDataSource> readable = replicas.stream()
+                .filter(replica -> replica.isReadable(now, properties.getMaxLagMs(), lastWriteAt))
+                .collect(Collectors.toList());
+
+        if (readable.isEmpty()) {
+            return PRIMARY;
+        }
+
+        if (properties.getStrategy() == RoutingDataSourceProperties.Strategy.LEAST_CONNECTIONS) {
+            return readable.stream()
+                    .min(Comparator.comparingInt(ReplicaDataSource::getActiveConnections))
+                    .get()
+                    .getName();
+        }
+
+        return readable.get(Math.floorMod(sequence.getAndIncrement(), readable.size())).getName();
+    }
+
+    /**
+     * 쓰기 트랜잭션이 커밋되면 시각을 남겨 이후 읽기가 그 시각 이전 replica로 가지 않게 한다
+     */
+    private void registerWriteSynchronization() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_SYNCHRONIZATION)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(WRITE_SYNCHRONIZATION, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ReadYourWritesContext.markWritten(System.currentTimeMillis(), properties.getMaxLagMs());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_SYNCHRONIZATION);
+            }
+        });
+    }
+}
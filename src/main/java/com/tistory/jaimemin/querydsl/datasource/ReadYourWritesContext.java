@@ -0,0 +1,94 @@
+package com.tistory.jaimemin.querydsl.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 같은 클라이언트에서 마지막으로 쓰기 트랜잭션이 커밋된 시각
+ * 세션을 만들지 않도록 요청 안에서는 쿠키로 돌려주고 다음 요청의 쿠키에서 읽는다
+ * 요청 밖(배치, 테스트)에서는 스레드 단위로 기억하며, 최대 지연보다 오래되면 지운다
+ * (최대 지연보다 오래된 쓰기는 읽기 가능한 모든 replica에 이미 반영되어 있다)
+ */
+public final class ReadYourWritesContext {
+
+    static final String COOKIE_NAME = "LAST_WRITE_AT";
+
+    private static final String LAST_WRITE_AT = ReadYourWritesContext.class.getName() + ".LAST_WRITE_AT";
+
+    private static final ThreadLocal<Long> THREAD_LAST_WRITE_AT = new ThreadLocal<>();
+
+    private ReadYourWritesContext() {
+    }
+
+    public static void markWritten(long writtenAt, long maxLagMs) {
+        ServletRequestAttributes attributes = currentRequest();
+
+        if (attributes == null) {
+            THREAD_LAST_WRITE_AT.set(writtenAt);
+            return;
+        }
+
+        // 같은 요청 안의 이후 읽기는 아직 쿠키가 없으므로 요청 속성으로 본다
+        attributes.setAttribute(LAST_WRITE_AT, writtenAt, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = attributes.getResponse();
+
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(writtenAt));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (maxLagMs + 999) / 1000));
+            response.addCookie(cookie);
+        }
+    }
+
+    public static long lastWriteAt(long now, long maxLagMs) {
+        ServletRequestAttributes attributes = currentRequest();
+
+        if (attributes == null) {
+            Long writtenAt = THREAD_LAST_WRITE_AT.get();
+
+            if (writtenAt != null && now - writtenAt > maxLagMs) {
+                THREAD_LAST_WRITE_AT.remove();
+                return 0L;
+            }
+
+            return writtenAt == null ? 0L : writtenAt;
+        }
+
+        Object inRequest = attributes.getAttribute(LAST_WRITE_AT, RequestAttributes.SCOPE_REQUEST);
+
+        if (inRequest != null) {
+            return (Long) inRequest;
+        }
+
+        Cookie cookie = WebUtils.getCookie(attributes.getRequest(), COOKIE_NAME);
+
+        if (cookie == null) {
+            return 0L;
+        }
+
+        try {
+            return Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 요청 밖에서 스레드를 다른 작업에 다시 쓰기 전에 호출한다
+     */
+    public static void clear() {
+        THREAD_LAST_WRITE_AT.remove();
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        return attributes instanceof ServletRequestAttributes ? (ServletRequestAttributes) attributes : null;
+    }
+}
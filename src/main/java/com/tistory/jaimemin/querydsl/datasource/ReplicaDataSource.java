@@ -0,0 +1,149 @@
+package com.tistory.jaimemin.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.Getter;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * replica 하나와 복제 상태
+ * replicatedAt은 replica에 반영된 primary 스냅샷 시각이며, 복사 중이거나 아직 복사 전이면 -1이다
+ * 라우팅된 커넥션 수(lease)를 세어, 복사 전에 이미 라우팅된 커넥션이 모두 닫힐 때까지 기다린다
+ */
+@Getter
+public class ReplicaDataSource {
+
+    private final String name;
+
+    private final DataSource dataSource;
+
+    private volatile long replicatedAt = -1;
+
+    private volatile boolean copying;
+
+    private final AtomicInteger leases = new AtomicInteger();
+
+    public ReplicaDataSource(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * 복사 중이 아니면 lease를 하나 얻는다. 얻었으면 leasedConnection()으로 커넥션을 받아야 하며 그 커넥션을 닫을 때 반납된다
+     * 먼저 올리고 copying을 확인하므로 drain()과 동시에 실행되어도 둘 중 하나는 상대를 본다
+     *
+     * @return
+     */
+    public boolean tryAcquire() {
+        leases.incrementAndGet();
+
+        if (copying) {
+            leases.decrementAndGet();
+            return false;
+        }
+
+        return true;
+    }
+
+    public Connection leasedConnection() throws SQLException {
+        Connection connection;
+
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            leases.decrementAndGet();
+            throw e;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                        leases.decrementAndGet();
+                    }
+
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    /**
+     * 새 라우팅을 막고 이미 라우팅된 커넥션이 모두 닫힐 때까지 기다린다
+     * 시간 안에 비지 않으면 복사를 취소하고 기존 상태로 계속 읽게 둔다
+     *
+     * @param timeoutMs
+     * @return 복사해도 되면 true
+     */
+    public boolean drain(long timeoutMs) {
+        copying = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        try {
+            while (leases.get() > 0) {
+                if (System.nanoTime() >= deadline) {
+                    copying = false;
+                    return false;
+                }
+
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            copying = false;
+            return false;
+        }
+
+        replicatedAt = -1;
+
+        return true;
+    }
+
+    public void markReplicated(long snapshotAt) {
+        replicatedAt = snapshotAt;
+        copying = false;
+    }
+
+    /**
+     * 복사 도중 실패하면 내용을 알 수 없으므로 다음 복사가 끝날 때까지 읽지 않는다
+     */
+    public void markFailed() {
+        replicatedAt = -1;
+        copying = false;
+    }
+
+    /**
+     * 복사 중이 아니고, 최대 지연 이내이고, lastWriteAt 이후의 primary 상태를 반영했으면 읽기에 사용할 수 있다
+     *
+     * @param now
+     * @param maxLagMs
+     * @param lastWriteAt
+     * @return
+     */
+    public boolean isReadable(long now, long maxLagMs, long lastWriteAt) {
+        long snapshotAt = replicatedAt;
+
+        return !copying && snapshotAt >= 0 && now - snapshotAt <= maxLagMs && snapshotAt >= lastWriteAt;
+    }
+
+    public int getActiveConnections() {
+        if (dataSource instanceof HikariDataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+
+        return 0;
+    }
+}
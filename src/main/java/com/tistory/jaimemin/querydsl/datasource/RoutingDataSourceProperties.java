@@ -0,0 +1,40 @@
+package com.tistory.jaimemin.querydsl.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+
+    private Strategy strategy = Strategy.ROUND_ROBIN;
+
+    // 이 시간보다 오래 복제되지 않은 replica는 읽기에서 제외한다
+    private long maxLagMs = 5_000;
+
+    private long copyIntervalMs = 1_000;
+
+    // 복사 전에 이미 라우팅된 replica 커넥션이 닫히기를 기다리는 시간. 넘으면 이번 복사를 건너뛴다
+    private long drainTimeoutMs = 5_000;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    public enum Strategy {
+        ROUND_ROBIN, LEAST_CONNECTIONS
+    }
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
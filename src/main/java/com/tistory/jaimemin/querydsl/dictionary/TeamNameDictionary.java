@@ -0,0 +1,165 @@
+package com.tistory.jaimemin.querydsl.dictionary;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.tistory.jaimemin.querydsl.entity.Team;
+import com.tistory.jaimemin.querydsl.event.BackgroundReload;
+import com.tistory.jaimemin.querydsl.event.EntityChangeEvent;
+import com.tistory.jaimemin.querydsl.event.EntityChangeListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.tistory.jaimemin.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋된 팀명 -> 팀 id 사전
+ * 시작 시와 주기적으로 team 테이블을 읽고, 그 사이에는 커밋된 Team 변경으로 갱신한다
+ * 다른 인스턴스나 SQL 경로로 바뀐 팀은 이벤트로 알 수 없으므로, 사전에 없는 팀명은 team 테이블에서 확인하고 주기적으로 다시 읽는다
+ * 팀명 조건을 member.team.id 조건으로 바꿔 team 조인 없이 검색할 수 있게 한다
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamNameDictionary implements EntityChangeListener {
+
+    private final JPAQueryFactory queryFactory;
+
+    // 팀 수는 많지 않으므로 변경마다 새 맵을 만들어 교체한다 (읽기는 잠금 없이)
+    private volatile Map<Long, String> names = Collections.emptyMap();
+
+    private volatile Map<String, Set<Long>> ids = Collections.emptyMap();
+
+    private volatile boolean loaded;
+
+    private final BackgroundReload bulkReload = new BackgroundReload("team-name-dictionary", this::load);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${member.team-dictionary.reload-interval-ms:60000}",
+            initialDelayString = "${member.team-dictionary.reload-interval-ms:60000}")
+    public synchronized void load() {
+        Map<Long, String> loadedNames = new HashMap<>();
+
+        for (Tuple tuple : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            if (tuple.get(team.name) != null) {
+                loadedNames.put(tuple.get(team.id), tuple.get(team.name));
+            }
+        }
+
+        replace(loadedNames);
+        loaded = true;
+    }
+
+    @Override
+    public void onChange(EntityChangeEvent event) {
+        if (!event.isFor(Team.class)) {
+            return;
+        }
+
+        Long teamId = (Long) event.getId();
+        String name = (String) event.getCurrent("name");
+
+        synchronized (this) {
+            Map<Long, String> changed = new HashMap<>(names);
+
+            if (event.getType() == EntityChangeEvent.Type.DELETE || name == null) {
+                changed.remove(teamId);
+            } else {
+                changed.put(teamId, name);
+            }
+
+            replace(changed);
+        }
+    }
+
+    @Override
+    public void onBulkChange(Class<?> entityType) {
+        if (Team.class.equals(entityType)) {
+            bulkReload.request();
+        }
+    }
+
+    /**
+     * 팀명에 해당하는 팀 id 목록. team 테이블에도 없는 팀명이면 빈 Set
+     * 사전을 아직 읽지 못했거나, 쓰기 트랜잭션 안이라 커밋 전 팀 변경이 있을 수 있으면 null (team.name으로 비교해야 한다)
+     *
+     * @param teamName
+     * @return
+     */
+    public Set<Long> teamIds(String teamName) {
+        if (!StringUtils.hasText(teamName) || !isUsable()) {
+            return null;
+        }
+
+        Set<Long> teamIds = ids.get(teamName);
+
+        return teamIds != null ? teamIds : lookup(teamName);
+    }
+
+    /**
+     * 사전과 team 테이블 어디에도 없는 팀명이면 true. 회원 조회 없이 빈 결과를 돌려줄 수 있다
+     *
+     * @param teamName
+     * @return
+     */
+    public boolean isUnknown(String teamName) {
+        Set<Long> teamIds = teamIds(teamName);
+
+        return teamIds != null && teamIds.isEmpty();
+    }
+
+    public String teamName(Long teamId) {
+        return teamId == null ? null : names.get(teamId);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    private boolean isUsable() {
+        return loaded
+                && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    /**
+     * 사전에 없는 팀명은 이벤트를 받지 못한 팀일 수 있으므로 team 테이블에서 찾는다. 찾으면 사전에 넣는다
+     *
+     * @param teamName
+     * @return
+     */
+    private Set<Long> lookup(String teamName) {
+        List<Long> found = queryFactory.select(team.id).from(team).where(team.name.eq(teamName)).fetch();
+
+        if (found.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        synchronized (this) {
+            Map<Long, String> changed = new HashMap<>(names);
+            found.forEach(teamId -> changed.put(teamId, teamName));
+            replace(changed);
+        }
+
+        return Collections.unmodifiableSet(new TreeSet<>(found));
+    }
+
+    private void replace(Map<Long, String> teamNames) {
+        Map<String, Set<Long>> teamIds = new HashMap<>();
+        teamNames.forEach((teamId, name) -> teamIds.computeIfAbsent(name, key -> new TreeSet<>()).add(teamId));
+        teamIds.replaceAll((name, set) -> Collections.unmodifiableSet(set));
+
+        names = Collections.unmodifiableMap(teamNames);
+        ids = Collections.unmodifiableMap(teamIds);
+    }
+}
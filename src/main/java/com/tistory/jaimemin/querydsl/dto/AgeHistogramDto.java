@@ -0,0 +1,19 @@
+package com.tistory.jaimemin.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 나이 구간별 회원 수. counts[0]은 bounds[0] 미만, counts[i]는 [bounds[i-1], bounds[i]), 마지막은 마지막 경계 이상
+ */
+@Data
+public class AgeHistogramDto {
+
+    private int[] bounds;
+
+    private long[] counts;
+
+    public AgeHistogramDto(int[] bounds, long[] counts) {
+        this.bounds = bounds;
+        this.counts = counts;
+    }
+}
@@ -0,0 +1,27 @@
+package com.tistory.jaimemin.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberChangesDto {
+
+    // 다음 요청의 since로 사용할 버전
+    private long version;
+
+    private List<MemberTeamDto> changed;
+
+    private List<Long> deletedMemberIds;
+
+    // 바뀐 뒤 검색 조건에 더 이상 맞지 않는 회원. 클라이언트는 삭제된 회원처럼 지운다
+    private List<Long> leftMemberIds;
+
+    public MemberChangesDto(long version, List<MemberTeamDto> changed, List<Long> deletedMemberIds,
+                            List<Long> leftMemberIds) {
+        this.version = version;
+        this.changed = changed;
+        this.deletedMemberIds = deletedMemberIds;
+        this.leftMemberIds = leftMemberIds;
+    }
+}
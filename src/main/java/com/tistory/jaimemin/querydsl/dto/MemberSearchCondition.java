@@ -8,9 +8,35 @@ public class MemberSearchCondition {
     // 회원명, 팀명, 나이(ageGoe, ageLoe)
     private String username;
 
+    // 대소문자 무시 일치, 대소문자 무시 접두어 (username_normalized 인덱스 사용)
+    private String usernameIgnoreCase;
+
+    private String usernameStartsWith;
+
+    // 대소문자 무시 부분 일치 (3글자 이상이면 trigram 색인으로 후보를 좁힌다)
+    private String usernameContains;
+
     private String teamName;
 
     private Integer ageGoe;
 
     private Integer ageLoe;
+
+    /**
+     * 캐시 키 등으로 보관할 때 호출자 쪽 변경에 영향받지 않도록 복사본을 만든다
+     *
+     * @return
+     */
+    public MemberSearchCondition copy() {
+        MemberSearchCondition copy = new MemberSearchCondition();
+        copy.setUsername(username);
+        copy.setUsernameIgnoreCase(usernameIgnoreCase);
+        copy.setUsernameStartsWith(usernameStartsWith);
+        copy.setUsernameContains(usernameContains);
+        copy.setTeamName(teamName);
+        copy.setAgeGoe(ageGoe);
+        copy.setAgeLoe(ageLoe);
+
+        return copy;
+    }
 }
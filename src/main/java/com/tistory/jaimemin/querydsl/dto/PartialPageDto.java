@@ -0,0 +1,31 @@
+package com.tistory.jaimemin.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * deadline 안에 전체 건수를 구하지 못했을 때의 응답 (totalElements 없음)
+ */
+@Data
+public class PartialPageDto {
+
+    private List<?> content;
+
+    private int number;
+
+    private int size;
+
+    private int numberOfElements;
+
+    // 전체 건수를 구하지 못했음을 클라이언트가 구분할 수 있도록 항상 false
+    private boolean totalKnown;
+
+    public PartialPageDto(List<?> content, int number, int size) {
+        this.content = content;
+        this.number = number;
+        this.size = size;
+        this.numberOfElements = content.size();
+        this.totalKnown = false;
+    }
+}
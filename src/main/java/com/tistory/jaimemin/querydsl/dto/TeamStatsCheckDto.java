@@ -0,0 +1,38 @@
+package com.tistory.jaimemin.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TeamStatsCheckDto {
+
+    private boolean consistent;
+
+    private int checkedTeams;
+
+    // team_stats 값과 member 집계가 다른 팀. 한쪽에만 있는 팀은 반대쪽이 null
+    private List<Mismatch> mismatches;
+
+    public TeamStatsCheckDto(int checkedTeams, List<Mismatch> mismatches) {
+        this.consistent = mismatches.isEmpty();
+        this.checkedTeams = checkedTeams;
+        this.mismatches = mismatches;
+    }
+
+    @Data
+    public static class Mismatch {
+
+        private Long teamId;
+
+        private TeamStatsDto stored;
+
+        private TeamStatsDto live;
+
+        public Mismatch(Long teamId, TeamStatsDto stored, TeamStatsDto live) {
+            this.teamId = teamId;
+            this.stored = stored;
+            this.live = live;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.tistory.jaimemin.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class TeamStatsDto {
+
+    private Long teamId;
+
+    private String teamName;
+
+    private long memberCount;
+
+    private long ageSum;
+
+    // 회원이 없으면 null
+    private Double avgAge;
+
+    private Integer minAge;
+
+    private Integer maxAge;
+
+    public TeamStatsDto(Long teamId, String teamName, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.avgAge = memberCount == 0 ? null : (double) ageSum / memberCount;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+}
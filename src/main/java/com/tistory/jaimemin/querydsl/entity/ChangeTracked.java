@@ -0,0 +1,10 @@
+package com.tistory.jaimemin.querydsl.entity;
+
+/**
+ * 변경 버전(change_version)을 기록하는 엔티티
+ * 저장, 수정 시 ChangeVersionEntityListener가 새 버전을 기록한다
+ */
+public interface ChangeTracked {
+
+    void setChangeVersion(Long changeVersion);
+}
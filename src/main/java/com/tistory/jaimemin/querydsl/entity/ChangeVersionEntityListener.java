@@ -0,0 +1,40 @@
+package com.tistory.jaimemin.querydsl.entity;
+
+import com.tistory.jaimemin.querydsl.version.ChangeVersionGenerator;
+import com.tistory.jaimemin.querydsl.version.MemberTombstoneRecorder;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
+
+/**
+ * Spring 빈 컨테이너를 통해 생성되는 엔티티 리스너
+ * 삭제된 회원은 동기화 클라이언트가 알 수 있도록 tombstone을 남긴다
+ */
+public class ChangeVersionEntityListener {
+
+    @Autowired
+    private ChangeVersionGenerator changeVersionGenerator;
+
+    @Autowired
+    private MemberTombstoneRecorder memberTombstoneRecorder;
+
+    @PrePersist
+    @PreUpdate
+    public void stamp(ChangeTracked entity) {
+        entity.setChangeVersion(changeVersionGenerator.next());
+    }
+
+    /**
+     * 콜백 안에서는 EntityManager를 쓰지 않고, tombstone은 커밋 직전에 저장된다
+     *
+     * @param entity
+     */
+    @PreRemove
+    public void tombstone(ChangeTracked entity) {
+        if (entity instanceof Member) {
+            memberTombstoneRecorder.record(((Member) entity).getId());
+        }
+    }
+}
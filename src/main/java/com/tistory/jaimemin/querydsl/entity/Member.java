@@ -1,15 +1,22 @@
 package com.tistory.jaimemin.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
 
 import javax.persistence.*;
+import java.util.Locale;
 
 @Getter
 @Setter
 @Entity
 @ToString(of = {"id", "username", "age"})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-public class Member {
+@EntityListeners({ChangeVersionEntityListener.class, UsernameBloomFilterEntityListener.class})
+@Table(indexes = {
+        @Index(name = "idx_member_change_version", columnList = "change_version"),
+        @Index(name = "idx_member_username_normalized", columnList = "username_normalized")
+})
+public class Member implements ChangeTracked {
 
     @Id
     @GeneratedValue
@@ -18,12 +25,44 @@ public class Member {
 
     private String username;
 
+    // 대소문자 무시 검색용. lower(username)처럼 컬럼을 함수로 감싸면 인덱스를 쓸 수 없어 따로 저장한다
+    @Setter(AccessLevel.NONE)
+    @Column(name = "username_normalized")
+    private String usernameNormalized;
+
     private int age;
 
     @JoinColumn(name = "team_id")
     @ManyToOne(fetch = FetchType.LAZY)
     private Team team;
 
+    @Column(name = "change_version")
+    private Long changeVersion;
+
+    // 마지막 수정 직전 상태와 그 버전. delta 동기화에서 since 시점에 검색 조건에 맞았던 회원을 가린다
+    // 생성 후 한 번도 수정되지 않았으면 null
+    @Setter(AccessLevel.NONE)
+    @Column(name = "previous_username")
+    private String previousUsername;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "previous_age")
+    private Integer previousAge;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "previous_team_id")
+    private Long previousTeamId;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "previous_change_version")
+    private Long previousChangeVersion;
+
+    // 마지막으로 읽거나 저장한 상태. 수정 시 previous* 컬럼으로 옮긴다
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private LoadedState loadedState;
+
     public Member(String username) {
         this(username, 0);
     }
@@ -33,7 +72,7 @@ public class Member {
     }
 
     public Member(String username, int age, Team team) {
-        this.username = username;
+        setUsername(username);
         this.age = age;
 
         if (team != null) {
@@ -41,9 +80,81 @@ public class Member {
         }
     }
 
+    public static String normalizeUsername(String username) {
+        return username == null ? null : username.toLowerCase(Locale.ROOT);
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameNormalized = normalizeUsername(username);
+    }
+
+    /**
+     * 필드에 직접 값을 넣은 경우(리플렉션 등)에도 저장 전에 맞춘다
+     */
+    @PrePersist
+    void syncUsernameNormalized() {
+        this.usernameNormalized = normalizeUsername(username);
+    }
+
+    /**
+     * team은 프록시일 수 있으나 id만 읽으므로 초기화되지 않는다
+     */
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberState() {
+        this.loadedState = new LoadedState(username, age, team == null ? null : team.getId(), changeVersion);
+    }
+
+    /**
+     * 한 트랜잭션에서 여러 번 flush하면 커밋되지 않은 중간 버전이 previousChangeVersion이 된다
+     * 그 버전은 어떤 클라이언트의 since보다도 크므로 동기화에서는 이전 상태를 모르는 것으로 다룬다
+     */
+    @PreUpdate
+    void beforeUpdate() {
+        syncUsernameNormalized();
+
+        if (loadedState != null) {
+            this.previousUsername = loadedState.username;
+            this.previousAge = loadedState.age;
+            this.previousTeamId = loadedState.teamId;
+            this.previousChangeVersion = loadedState.changeVersion == null ? 0L : loadedState.changeVersion;
+        }
+    }
+
+    /**
+     * bytecode enhancement의 association management가 켜져 있으면 필드 대입만으로 반대편 컬렉션이 갱신되므로
+     * 중복 추가하지 않도록 확인한다
+     * 아직 로딩되지 않은 팀 프록시나 members 컬렉션은 건드리지 않는다 (getMembers()는 프록시를, remove/contains는 컬렉션을 읽어 온다)
+     *
+     * @param team
+     */
     public void changeTeam(Team team) {
+        if (this.team != null && this.team != team && isMembersLoaded(this.team)) {
+            this.team.getMembers().remove(this);
+        }
+
         this.team = team;
-        team.getMembers().add(this);
+
+        if (isMembersLoaded(team) && !team.getMembers().contains(this)) {
+            team.getMembers().add(this);
+        }
+    }
+
+    private static boolean isMembersLoaded(Team team) {
+        return Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers());
     }
 
+    @RequiredArgsConstructor
+    private static class LoadedState {
+
+        private final String username;
+
+        private final Integer age;
+
+        private final Long teamId;
+
+        private final Long changeVersion;
+    }
 }
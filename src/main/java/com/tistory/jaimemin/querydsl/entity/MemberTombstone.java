@@ -0,0 +1,36 @@
+package com.tistory.jaimemin.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+@Getter
+@Entity
+@ToString(of = {"memberId", "changeVersion"})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(name = "idx_member_tombstone_change_version", columnList = "change_version"))
+public class MemberTombstone {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "member_tombstone_id")
+    private Long id;
+
+    private Long memberId;
+
+    @Column(name = "change_version")
+    private Long changeVersion;
+
+    public MemberTombstone(Long memberId, Long changeVersion) {
+        this.memberId = memberId;
+        this.changeVersion = changeVersion;
+    }
+}
@@ -11,7 +11,9 @@ import java.util.List;
 @Entity
 @ToString(of = {"id", "name"})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-public class Team {
+@EntityListeners(ChangeVersionEntityListener.class)
+@Table(indexes = @Index(name = "idx_team_change_version", columnList = "change_version"))
+public class Team implements ChangeTracked {
 
     @Id
     @GeneratedValue
@@ -20,6 +22,9 @@ public class Team {
 
     private String name;
 
+    @Column(name = "change_version")
+    private Long changeVersion;
+
     @OneToMany(mappedBy = "team")
     List<Member> members = new ArrayList<>();
 
@@ -0,0 +1,45 @@
+package com.tistory.jaimemin.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 팀별 회원 수, 나이 합계/최솟값/최댓값
+ * 회원 변경과 같은 트랜잭션에서 TeamStatsMaintainer가 SQL로 갱신하므로 엔티티로는 읽기만 한다
+ * 최솟값/최댓값에 해당하는 회원이 빠지면 새 값을 알 수 없어 minMaxStale을 세우고, 읽을 때 다시 계산한다
+ */
+@Getter
+@Entity
+@ToString(of = {"teamId", "memberCount", "ageSum", "minAge", "maxAge", "minMaxStale"})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "member_count")
+    private long memberCount;
+
+    @Column(name = "age_sum")
+    private long ageSum;
+
+    @Column(name = "min_age")
+    private Integer minAge;
+
+    @Column(name = "max_age")
+    private Integer maxAge;
+
+    @Column(name = "min_max_stale")
+    private boolean minMaxStale;
+
+    public Double getAvgAge() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
@@ -0,0 +1,23 @@
+package com.tistory.jaimemin.querydsl.entity;
+
+import com.tistory.jaimemin.querydsl.bloom.UsernameBloomFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+/**
+ * 커밋 전에 필터에 넣어 두어야 커밋 직후의 조회가 필터에 막히지 않는다
+ * 롤백된 username은 다음 재구성 전까지 오탐으로만 남는다
+ */
+public class UsernameBloomFilterEntityListener {
+
+    @Autowired
+    private UsernameBloomFilter usernameBloomFilter;
+
+    @PrePersist
+    @PreUpdate
+    public void add(Member member) {
+        usernameBloomFilter.add(member.getUsername());
+    }
+}
@@ -0,0 +1,86 @@
+package com.tistory.jaimemin.querydsl.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메모리 구조를 DB에서 다시 읽는 작업의 실행기
+ * 한 번에 하나만 실행하고, 실행 중에 다시 요청되면 끝난 뒤 한 번 더 실행한다 (실행 중인 스캔이 요청 이전 상태를 읽었을 수 있으므로)
+ * 여러 번 요청되어도 대기 중인 실행은 하나로 합친다
+ * request()는 별도 스레드에서 실행하므로 커밋 직후(afterCommit) 요청 스레드를 붙잡지 않는다
+ */
+@Slf4j
+public class BackgroundReload {
+
+    private final String name;
+
+    private final Runnable reload;
+
+    private final ThreadPoolExecutor executor;
+
+    // 아래 필드는 this로 동기화한다
+    private boolean running;
+
+    private boolean requested;
+
+    public BackgroundReload(String name, Runnable reload) {
+        this.name = name;
+        this.reload = reload;
+        this.executor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "reload-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 별도 스레드에서 다시 읽는다
+     */
+    public void request() {
+        if (claim()) {
+            executor.execute(this::runUntilSettled);
+        }
+    }
+
+    /**
+     * 호출한 스레드에서 다시 읽는다 (시작 시, 주기 작업). 이미 실행 중이면 그 실행이 끝난 뒤 한 번 더 실행되게 하고 바로 돌아온다
+     */
+    public void run() {
+        if (claim()) {
+            runUntilSettled();
+        }
+    }
+
+    private synchronized boolean claim() {
+        if (running) {
+            requested = true;
+            return false;
+        }
+
+        running = true;
+
+        return true;
+    }
+
+    private void runUntilSettled() {
+        while (true) {
+            try {
+                reload.run();
+            } catch (RuntimeException e) {
+                log.warn("reload failed. name={}", name, e);
+            }
+
+            synchronized (this) {
+                if (!requested) {
+                    running = false;
+                    return;
+                }
+
+                requested = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.tistory.jaimemin.querydsl.event;
+
+import lombok.Getter;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 커밋된 엔티티 변경 한 건
+ * state는 변경 후(DELETE는 삭제 직전) 값, previousState는 UPDATE에서만 채워진다
+ */
+@Getter
+public class EntityChangeEvent {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Type type;
+
+    private final Object entity;
+
+    private final Object id;
+
+    private final String[] propertyNames;
+
+    private final Object[] state;
+
+    private final Object[] previousState;
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    public EntityChangeEvent(Type type, Object entity, Object id, String[] propertyNames,
+                             Object[] state, Object[] previousState, SessionFactoryImplementor sessionFactory) {
+        this.type = type;
+        this.entity = entity;
+        this.id = id;
+        this.propertyNames = propertyNames;
+        this.state = state;
+        this.previousState = previousState;
+        this.sessionFactory = sessionFactory;
+    }
+
+    public boolean isFor(Class<?> entityType) {
+        return entityType.isInstance(entity);
+    }
+
+    public Object getCurrent(String propertyName) {
+        return valueOf(state, propertyName);
+    }
+
+    public Object getPrevious(String propertyName) {
+        return valueOf(previousState, propertyName);
+    }
+
+    public boolean isChanged(String propertyName) {
+        return type != Type.UPDATE
+                || previousState == null
+                || !Objects.equals(getCurrent(propertyName), getPrevious(propertyName));
+    }
+
+    /**
+     * 연관관계 값(프록시 포함)의 식별자를 초기화 없이 꺼낸다
+     *
+     * @param reference
+     * @return
+     */
+    public Object referenceId(Object reference) {
+        if (reference == null) {
+            return null;
+        }
+
+        if (reference instanceof HibernateProxy) {
+            return ((HibernateProxy) reference).getHibernateLazyInitializer().getIdentifier();
+        }
+
+        return sessionFactory.getMetamodel()
+                .entityPersister(reference.getClass())
+                .getIdentifier(reference, null);
+    }
+
+    private Object valueOf(Object[] values, String propertyName) {
+        if (values == null) {
+            return null;
+        }
+
+        int index = Arrays.asList(propertyNames).indexOf(propertyName);
+
+        return index < 0 ? null : values[index];
+    }
+}
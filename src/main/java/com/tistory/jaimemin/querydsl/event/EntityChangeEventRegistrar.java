@@ -0,0 +1,121 @@
+package com.tistory.jaimemin.querydsl.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate post-commit 이벤트를 EntityChangeListener 빈들에게 전달한다
+ * 커밋 이후에만 전달하므로 롤백된 변경은 리스너에 보이지 않는다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EntityChangeEventRegistrar implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ObjectProvider<EntityChangeListener> listeners;
+
+    private SessionFactoryImplementor sessionFactory;
+
+    @PostConstruct
+    public void register() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * bulk update/delete 이후 호출한다. 트랜잭션 안이면 커밋 이후에 전달된다
+     *
+     * @param entityType
+     */
+    public void publishBulkChange(Class<?> entityType) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            fireBulkChange(entityType);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                fireBulkChange(entityType);
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        fire(new EntityChangeEvent(EntityChangeEvent.Type.INSERT, event.getEntity(), event.getId()
+                , event.getPersister().getPropertyNames(), event.getState(), null, sessionFactory));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        fire(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, event.getEntity(), event.getId()
+                , event.getPersister().getPropertyNames(), event.getState(), event.getOldState(), sessionFactory));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        fire(new EntityChangeEvent(EntityChangeEvent.Type.DELETE, event.getEntity(), event.getId()
+                , event.getPersister().getPropertyNames(), event.getDeletedState(), null, sessionFactory));
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return true;
+    }
+
+    private void fire(EntityChangeEvent event) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onChange(event);
+            } catch (RuntimeException e) {
+                log.warn("entity change listener failed. listener={}, entity={}", listener, event.getEntity(), e);
+            }
+        });
+    }
+
+    private void fireBulkChange(Class<?> entityType) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onBulkChange(entityType);
+            } catch (RuntimeException e) {
+                log.warn("entity change listener failed. listener={}, bulk={}", listener, entityType, e);
+            }
+        });
+    }
+}
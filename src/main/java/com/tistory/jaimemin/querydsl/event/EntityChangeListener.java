@@ -0,0 +1,18 @@
+package com.tistory.jaimemin.querydsl.event;
+
+/**
+ * 커밋된 엔티티 변경을 전달받는 빈
+ * EntityChangeEventRegistrar가 Hibernate post-commit 이벤트와 bulk 연산을 이 인터페이스로 전달한다
+ */
+public interface EntityChangeListener {
+
+    void onChange(EntityChangeEvent event);
+
+    /**
+     * bulk update/delete는 영속성 컨텍스트를 거치지 않아 어떤 행이 바뀌었는지 알 수 없다
+     *
+     * @param entityType
+     */
+    default void onBulkChange(Class<?> entityType) {
+    }
+}
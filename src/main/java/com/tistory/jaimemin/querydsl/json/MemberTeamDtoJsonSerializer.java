@@ -0,0 +1,60 @@
+package com.tistory.jaimemin.querydsl.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * 리플렉션 기반 BeanSerializer 대신 미리 인코딩한 필드명으로 바로 기록한다
+ * 출력 형태는 기본 직렬화와 같다
+ */
+@JsonComponent
+public class MemberTeamDtoJsonSerializer extends StdSerializer<MemberTeamDto> {
+
+    private static final SerializedString MEMBER_ID = new SerializedString("memberId");
+
+    private static final SerializedString USERNAME = new SerializedString("username");
+
+    private static final SerializedString AGE = new SerializedString("age");
+
+    private static final SerializedString TEAM_ID = new SerializedString("teamId");
+
+    private static final SerializedString TEAM_NAME = new SerializedString("teamName");
+
+    public MemberTeamDtoJsonSerializer() {
+        super(MemberTeamDto.class);
+    }
+
+    @Override
+    public void serialize(MemberTeamDto dto, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        write(dto, generator);
+    }
+
+    static void write(MemberTeamDto dto, JsonGenerator generator) throws IOException {
+        generator.writeStartObject(dto);
+        generator.writeFieldName(MEMBER_ID);
+        writeNumber(dto.getMemberId(), generator);
+        generator.writeFieldName(USERNAME);
+        generator.writeString(dto.getUsername());
+        generator.writeFieldName(AGE);
+        generator.writeNumber(dto.getAge());
+        generator.writeFieldName(TEAM_ID);
+        writeNumber(dto.getTeamId(), generator);
+        generator.writeFieldName(TEAM_NAME);
+        generator.writeString(dto.getTeamName());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(Long value, JsonGenerator generator) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
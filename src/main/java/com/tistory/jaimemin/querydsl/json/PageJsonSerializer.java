@@ -0,0 +1,135 @@
+package com.tistory.jaimemin.querydsl.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+
+/**
+ * PageImpl, Pageable, Sort를 getter introspection 없이 직접 기록한다
+ * 필드 구성은 기본 직렬화 결과와 같으므로 기존 클라이언트는 그대로 동작한다
+ */
+@JsonComponent
+public class PageJsonSerializer extends StdSerializer<Page<?>> {
+
+    private static final SerializedString CONTENT = new SerializedString("content");
+
+    private static final SerializedString PAGEABLE = new SerializedString("pageable");
+
+    private static final SerializedString SORT = new SerializedString("sort");
+
+    private static final SerializedString EMPTY = new SerializedString("empty");
+
+    private static final SerializedString SORTED = new SerializedString("sorted");
+
+    private static final SerializedString UNSORTED = new SerializedString("unsorted");
+
+    private static final SerializedString OFFSET = new SerializedString("offset");
+
+    private static final SerializedString PAGE_NUMBER = new SerializedString("pageNumber");
+
+    private static final SerializedString PAGE_SIZE = new SerializedString("pageSize");
+
+    private static final SerializedString PAGED = new SerializedString("paged");
+
+    private static final SerializedString UNPAGED = new SerializedString("unpaged");
+
+    private static final SerializedString LAST = new SerializedString("last");
+
+    private static final SerializedString TOTAL_PAGES = new SerializedString("totalPages");
+
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+
+    private static final SerializedString SIZE = new SerializedString("size");
+
+    private static final SerializedString NUMBER = new SerializedString("number");
+
+    private static final SerializedString FIRST = new SerializedString("first");
+
+    private static final SerializedString NUMBER_OF_ELEMENTS = new SerializedString("numberOfElements");
+
+    // Pageable.unpaged()는 enum 상수라 기본 직렬화에서 이름으로 기록된다
+    private static final SerializedString UNPAGED_INSTANCE = new SerializedString("INSTANCE");
+
+    public PageJsonSerializer() {
+        super(Page.class, false);
+    }
+
+    @Override
+    public void serialize(Page<?> page, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(page);
+        generator.writeFieldName(CONTENT);
+        generator.writeStartArray(page.getContent(), page.getNumberOfElements());
+
+        for (Object element : page.getContent()) {
+            if (element instanceof MemberTeamDto) {
+                MemberTeamDtoJsonSerializer.write((MemberTeamDto) element, generator);
+            } else {
+                provider.defaultSerializeValue(element, generator);
+            }
+        }
+
+        generator.writeEndArray();
+        generator.writeFieldName(PAGEABLE);
+        writePageable(page.getPageable(), generator);
+        generator.writeFieldName(LAST);
+        generator.writeBoolean(page.isLast());
+        generator.writeFieldName(TOTAL_PAGES);
+        generator.writeNumber(page.getTotalPages());
+        generator.writeFieldName(TOTAL_ELEMENTS);
+        generator.writeNumber(page.getTotalElements());
+        generator.writeFieldName(SIZE);
+        generator.writeNumber(page.getSize());
+        generator.writeFieldName(NUMBER);
+        generator.writeNumber(page.getNumber());
+        generator.writeFieldName(SORT);
+        writeSort(page.getSort(), generator);
+        generator.writeFieldName(FIRST);
+        generator.writeBoolean(page.isFirst());
+        generator.writeFieldName(NUMBER_OF_ELEMENTS);
+        generator.writeNumber(page.getNumberOfElements());
+        generator.writeFieldName(EMPTY);
+        generator.writeBoolean(page.isEmpty());
+        generator.writeEndObject();
+    }
+
+    private void writePageable(Pageable pageable, JsonGenerator generator) throws IOException {
+        if (pageable.isUnpaged()) {
+            generator.writeString(UNPAGED_INSTANCE);
+            return;
+        }
+
+        generator.writeStartObject();
+        generator.writeFieldName(SORT);
+        writeSort(pageable.getSort(), generator);
+        generator.writeFieldName(OFFSET);
+        generator.writeNumber(pageable.getOffset());
+        generator.writeFieldName(PAGE_NUMBER);
+        generator.writeNumber(pageable.getPageNumber());
+        generator.writeFieldName(PAGE_SIZE);
+        generator.writeNumber(pageable.getPageSize());
+        generator.writeFieldName(PAGED);
+        generator.writeBoolean(true);
+        generator.writeFieldName(UNPAGED);
+        generator.writeBoolean(false);
+        generator.writeEndObject();
+    }
+
+    private void writeSort(Sort sort, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(EMPTY);
+        generator.writeBoolean(sort.isEmpty());
+        generator.writeFieldName(SORTED);
+        generator.writeBoolean(sort.isSorted());
+        generator.writeFieldName(UNSORTED);
+        generator.writeBoolean(sort.isUnsorted());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,78 @@
+package com.tistory.jaimemin.querydsl.loader;
+
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.repository.MemberJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 요청 단위 DataLoader 방식의 회원 로더
+ * load()로 모아 둔 id를 dispatch()에서 member.id IN (...) 한 번으로 조회해 각 future를 완료한다
+ * 같은 요청 안에서 한 번 읽은 id는 다시 조회하지 않는다
+ */
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class MemberBatchLoader {
+
+    private final MemberJpaRepository memberJpaRepository;
+
+    private final Map<Long, CompletableFuture<Optional<Member>>> loaded = new HashMap<>();
+
+    private final Map<Long, CompletableFuture<Optional<Member>>> pending = new LinkedHashMap<>();
+
+    /**
+     * dispatch() 전까지는 완료되지 않는다
+     *
+     * @param id
+     * @return
+     */
+    public synchronized CompletableFuture<Optional<Member>> load(Long id) {
+        return loaded.computeIfAbsent(id, key -> {
+            CompletableFuture<Optional<Member>> future = new CompletableFuture<>();
+            pending.put(key, future);
+            return future;
+        });
+    }
+
+    public void dispatch() {
+        Map<Long, CompletableFuture<Optional<Member>>> batch;
+
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+
+        try {
+            List<Member> members = memberJpaRepository.findAllByIds(batch.keySet());
+            Map<Long, Member> byId = new HashMap<>();
+
+            for (Member member : members) {
+                byId.put(member.getId(), member);
+            }
+
+            batch.forEach((id, future) -> future.complete(Optional.ofNullable(byId.get(id))));
+        } catch (RuntimeException e) {
+            // 실패한 id는 다음 load에서 다시 조회할 수 있게 캐시에서 뺀다
+            synchronized (this) {
+                batch.keySet().forEach(loaded::remove);
+            }
+
+            batch.values().forEach(future -> future.completeExceptionally(e));
+
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.tistory.jaimemin.querydsl.ngram;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * 한 trigram을 포함하는 id 목록
+ * 정렬된 id의 차이(delta)를 varint로 압축해 두고, 이후 추가/삭제는 pending에 모았다가 목록 크기에 비례한 개수가 되면 다시 압축한다
+ * 동기화는 TrigramIndex를 쓰는 쪽이 맡는다
+ */
+final class PostingList {
+
+    private static final int MERGE_THRESHOLD = 64;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] encoded = EMPTY;
+
+    private int encodedCount;
+
+    private TreeSet<Long> added;
+
+    private TreeSet<Long> removed;
+
+    PostingList() {
+    }
+
+    PostingList(long[] sortedIds) {
+        this.encoded = encode(sortedIds);
+        this.encodedCount = sortedIds.length;
+    }
+
+    void add(long id) {
+        // 삭제 기록이 압축된 목록에 없는 id일 수도 있으므로 상쇄하지 않고 추가로 남긴다 (toArray가 중복을 걸러낸다)
+        if (removed != null) {
+            removed.remove(id);
+        }
+
+        if (added == null) {
+            added = new TreeSet<>();
+        }
+
+        added.add(id);
+        mergeIfNecessary();
+    }
+
+    void remove(long id) {
+        if (added != null) {
+            added.remove(id);
+        }
+
+        if (removed == null) {
+            removed = new TreeSet<>();
+        }
+
+        removed.add(id);
+        mergeIfNecessary();
+    }
+
+    /**
+     * 교집합 순서를 정할 때 쓰는 대략적인 크기 (pending이 이미 압축된 id와 겹치거나 목록에 없는 id를 삭제하면 실제와 다를 수 있다)
+     *
+     * @return
+     */
+    int estimatedSize() {
+        return Math.max(0, encodedCount
+                + (added == null ? 0 : added.size())
+                - (removed == null ? 0 : removed.size()));
+    }
+
+    int encodedBytes() {
+        return encoded.length;
+    }
+
+    /**
+     * 압축된 id와 pending을 합친 정렬된 id 배열. 내부 상태는 바꾸지 않으므로 읽기 잠금 안에서 호출할 수 있다
+     *
+     * @return
+     */
+    long[] toArray() {
+        long[] decoded = decode(encoded, encodedCount);
+
+        if (added == null && removed == null) {
+            return decoded;
+        }
+
+        long[] merged = new long[decoded.length + (added == null ? 0 : added.size())];
+        int size = 0;
+        int i = 0;
+
+        if (added != null) {
+            for (long id : added) {
+                while (i < decoded.length && decoded[i] < id) {
+                    size = append(merged, size, decoded[i++]);
+                }
+
+                size = append(merged, size, id);
+            }
+        }
+
+        while (i < decoded.length) {
+            size = append(merged, size, decoded[i++]);
+        }
+
+        return Arrays.copyOf(merged, size);
+    }
+
+    private int append(long[] target, int size, long id) {
+        if (removed != null && removed.contains(id)) {
+            return size;
+        }
+
+        if (size > 0 && target[size - 1] == id) {
+            return size;
+        }
+
+        target[size] = id;
+
+        return size + 1;
+    }
+
+    private void mergeIfNecessary() {
+        int pending = (added == null ? 0 : added.size()) + (removed == null ? 0 : removed.size());
+
+        // 큰 목록을 자주 다시 압축하지 않도록 기준을 크기에 비례해 늘린다
+        if (pending < Math.max(MERGE_THRESHOLD, encodedCount >> 3)) {
+            return;
+        }
+
+        long[] ids = toArray();
+        encoded = encode(ids);
+        encodedCount = ids.length;
+        added = null;
+        removed = null;
+    }
+
+    static byte[] encode(long[] sortedIds) {
+        byte[] buffer = new byte[sortedIds.length * 10];
+        int position = 0;
+        long previous = 0;
+
+        for (long id : sortedIds) {
+            long delta = id - previous;
+            previous = id;
+
+            while ((delta & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+
+            buffer[position++] = (byte) delta;
+        }
+
+        return Arrays.copyOf(buffer, position);
+    }
+
+    static long[] decode(byte[] bytes, int count) {
+        long[] ids = new long[count];
+        int position = 0;
+        long previous = 0;
+
+        for (int i = 0; i < count; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte current;
+
+            do {
+                current = bytes[position++];
+                delta |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+
+            previous += delta;
+            ids[i] = previous;
+        }
+
+        return ids;
+    }
+}
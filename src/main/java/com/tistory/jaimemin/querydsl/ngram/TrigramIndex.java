@@ -0,0 +1,186 @@
+package com.tistory.jaimemin.querydsl.ngram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 문자열 3글자 조각(trigram) -> id posting list 역색인
+ * 부분 문자열 검색은 조각별 posting list의 교집합으로 후보를 좁히고, 실제 포함 여부는 호출자가 다시 확인한다
+ * 후보에는 거짓 양성이 있을 수 있지만(조각은 모두 있으나 이어져 있지 않은 경우 등) 빠지는 id는 없다
+ * 스레드 안전하지 않다
+ */
+public class TrigramIndex {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private final Map<String, PostingList> postings;
+
+    public TrigramIndex() {
+        this(new HashMap<>());
+    }
+
+    private TrigramIndex(Map<String, PostingList> postings) {
+        this.postings = postings;
+    }
+
+    public void add(long id, String text) {
+        for (String gram : trigrams(text)) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(id);
+        }
+    }
+
+    public void remove(long id, String text) {
+        for (String gram : trigrams(text)) {
+            PostingList posting = postings.get(gram);
+
+            if (posting != null) {
+                posting.remove(id);
+            }
+        }
+    }
+
+    /**
+     * fragment의 모든 trigram을 포함하는 id (오름차순)
+     * fragment가 trigram보다 짧아 색인으로 좁힐 수 없으면 null
+     *
+     * @param fragment
+     * @return
+     */
+    public long[] candidates(String fragment) {
+        Set<String> grams = trigrams(fragment);
+
+        if (grams.isEmpty()) {
+            return null;
+        }
+
+        List<PostingList> lists = new ArrayList<>(grams.size());
+
+        for (String gram : grams) {
+            PostingList posting = postings.get(gram);
+
+            if (posting == null) {
+                return new long[0];
+            }
+
+            lists.add(posting);
+        }
+
+        // 가장 작은 목록부터 교집합을 구해 중간 결과를 작게 유지한다
+        lists.sort(Comparator.comparingInt(PostingList::estimatedSize));
+        long[] result = lists.get(0).toArray();
+
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i).toArray());
+        }
+
+        return result;
+    }
+
+    public int gramCount() {
+        return postings.size();
+    }
+
+    public long encodedBytes() {
+        long bytes = 0;
+
+        for (PostingList posting : postings.values()) {
+            bytes += posting.encodedBytes();
+        }
+
+        return bytes;
+    }
+
+    static Set<String> trigrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+
+        if (text == null) {
+            return grams;
+        }
+
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+
+        return grams;
+    }
+
+    static long[] intersect(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 전체 적재용. id를 모아 두었다가 trigram마다 한 번만 정렬/압축한다
+     */
+    public static class Builder {
+
+        private final Map<String, long[]> ids = new HashMap<>();
+
+        private final Map<String, Integer> sizes = new HashMap<>();
+
+        public Builder add(long id, String text) {
+            for (String gram : trigrams(text)) {
+                long[] values = ids.get(gram);
+                int size = sizes.getOrDefault(gram, 0);
+
+                if (values == null) {
+                    values = new long[4];
+                } else if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+
+                values[size] = id;
+                ids.put(gram, values);
+                sizes.put(gram, size + 1);
+            }
+
+            return this;
+        }
+
+        public TrigramIndex build() {
+            Map<String, PostingList> postings = new HashMap<>(ids.size() * 2);
+
+            ids.forEach((gram, values) -> {
+                long[] sorted = Arrays.copyOf(values, sizes.get(gram));
+                Arrays.sort(sorted);
+                postings.put(gram, new PostingList(distinct(sorted)));
+            });
+
+            return new TrigramIndex(postings);
+        }
+
+        private static long[] distinct(long[] sorted) {
+            int size = 0;
+
+            for (long id : sorted) {
+                if (size == 0 || sorted[size - 1] != id) {
+                    sorted[size++] = id;
+                }
+            }
+
+            return Arrays.copyOf(sorted, size);
+        }
+    }
+}
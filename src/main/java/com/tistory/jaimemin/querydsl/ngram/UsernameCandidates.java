@@ -0,0 +1,19 @@
+package com.tistory.jaimemin.querydsl.ngram;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * trigram 색인이 돌려준 member id 후보
+ * maxIndexedId보다 큰 id는 마지막 스캔 이후에 생긴 회원이라 색인에 없을 수 있으므로, 후보와 함께 LIKE로 확인해야 한다
+ */
+@Getter
+@RequiredArgsConstructor
+public class UsernameCandidates {
+
+    private final List<Long> memberIds;
+
+    private final long maxIndexedId;
+}
@@ -0,0 +1,203 @@
+package com.tistory.jaimemin.querydsl.ngram;
+
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.event.BackgroundReload;
+import com.tistory.jaimemin.querydsl.event.EntityChangeEvent;
+import com.tistory.jaimemin.querydsl.event.EntityChangeListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * username_normalized의 trigram 색인. usernameContains 조건을 member_id IN (후보)로 바꿔 전체 스캔을 피한다
+ * 시작 시와 주기적으로 member를 스트리밍으로 읽어 만들고, 그 사이에는 커밋된 Member 변경으로 갱신하며 bulk 연산 후에는 다시 읽는다
+ * 후보는 조회에서 LIKE로 다시 확인하므로, 삭제/변경 반영이 늦어 남은 id는 결과에 영향이 없다
+ * 다른 인스턴스나 SQL로 추가된 회원, 커밋 후 이벤트가 오기 전의 회원은 색인에 없으므로 마지막 스캔의 최대 id보다 큰 id는 조회에서 따로 확인한다
+ * 다른 경로로 username만 바뀐 기존 회원은 다음 스캔까지 찾지 못할 수 있다
+ */
+@Slf4j
+@Component
+public class UsernameTrigramIndex implements EntityChangeListener {
+
+    private static final String SCAN_SQL = "SELECT member_id, username_normalized FROM member WHERE username_normalized IS NOT NULL";
+
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    private static final String USERNAME_NORMALIZED = "usernameNormalized";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TrigramIndex index;
+
+    // 마지막 스캔에서 본 가장 큰 member id. 이보다 큰 id는 색인에 없을 수 있다
+    private long maxIndexedId;
+
+    // 다시 읽는 동안 커밋된 변경. 스캔에 보이지 않았을 수 있어 새 색인에 다시 적용한다
+    private List<EntityChangeEvent> changedWhileLoading;
+
+    private final BackgroundReload reload = new BackgroundReload("username-trigram-index", this::scan);
+
+    public UsernameTrigramIndex(JdbcTemplate jdbcTemplate,
+                                @Value("${member.username-ngram.max-candidates:1000}") int maxCandidates) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${member.username-ngram.rebuild-interval-ms:600000}",
+            initialDelayString = "${member.username-ngram.rebuild-interval-ms:600000}")
+    public void load() {
+        reload.run();
+    }
+
+    private void scan() {
+        lock.writeLock().lock();
+
+        try {
+            changedWhileLoading = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TrigramIndex.Builder builder = new TrigramIndex.Builder();
+        AtomicLong maxId = new AtomicLong();
+        TrigramIndex next = null;
+
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SCAN_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(SCAN_FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                long memberId = resultSet.getLong(1);
+                builder.add(memberId, resultSet.getString(2));
+                maxId.accumulateAndGet(memberId, Math::max);
+            });
+            next = builder.build();
+        } catch (RuntimeException e) {
+            log.warn("username trigram index load failed", e);
+        } finally {
+            lock.writeLock().lock();
+
+            try {
+                if (next != null) {
+                    for (EntityChangeEvent event : changedWhileLoading) {
+                        apply(next, event);
+                    }
+
+                    index = next;
+                    maxIndexedId = maxId.get();
+                }
+
+                changedWhileLoading = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public void onChange(EntityChangeEvent event) {
+        if (!event.isFor(Member.class) || !event.isChanged(USERNAME_NORMALIZED)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+
+        try {
+            if (index != null) {
+                apply(index, event);
+            }
+
+            if (changedWhileLoading != null) {
+                changedWhileLoading.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onBulkChange(Class<?> entityType) {
+        if (Member.class.equals(entityType)) {
+            reload.request();
+        }
+    }
+
+    /**
+     * fragment(정규화된 값)를 포함할 수 있는 member id 후보. maxIndexedId보다 큰 id는 후보와 별도로 확인해야 한다
+     * 색인을 아직 만들지 못했거나, 쓰기 트랜잭션 안이거나, fragment가 3글자보다 짧거나, 후보가 너무 많으면 null (LIKE로만 찾아야 한다)
+     *
+     * @param fragment
+     * @return
+     */
+    public UsernameCandidates candidates(String fragment) {
+        if (fragment == null || fragment.length() < TrigramIndex.GRAM_LENGTH || !isReadOnlyContext()) {
+            return null;
+        }
+
+        long[] ids;
+        long indexedUpTo;
+        lock.readLock().lock();
+
+        try {
+            if (index == null) {
+                return null;
+            }
+
+            ids = index.candidates(fragment);
+            indexedUpTo = maxIndexedId;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (ids == null || ids.length > maxCandidates) {
+            return null;
+        }
+
+        List<Long> candidates = new ArrayList<>(ids.length);
+
+        for (long id : ids) {
+            candidates.add(id);
+        }
+
+        return new UsernameCandidates(candidates, indexedUpTo);
+    }
+
+    private void apply(TrigramIndex target, EntityChangeEvent event) {
+        Long memberId = (Long) event.getId();
+
+        if (event.getType() == EntityChangeEvent.Type.DELETE) {
+            target.remove(memberId, (String) event.getCurrent(USERNAME_NORMALIZED));
+            return;
+        }
+
+        // 변경 전 값이 없는 UPDATE는 이전 trigram을 지울 수 없지만 남은 후보는 조회에서 걸러진다
+        target.remove(memberId, (String) event.getPrevious(USERNAME_NORMALIZED));
+        target.add(memberId, (String) event.getCurrent(USERNAME_NORMALIZED));
+    }
+
+    private static boolean isReadOnlyContext() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
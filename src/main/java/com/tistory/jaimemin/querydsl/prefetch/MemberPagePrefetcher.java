@@ -0,0 +1,245 @@
+package com.tistory.jaimemin.querydsl.prefetch;
+
+import com.tistory.jaimemin.querydsl.datasource.ReadWriteRoutingDataSource;
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import com.tistory.jaimemin.querydsl.repository.MemberRepository;
+import com.tistory.jaimemin.querydsl.repository.MemberSqlRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * searchPageComplex로 N 페이지를 응답한 뒤 N+1 페이지를 미리 읽어두는 prefetch
+ * 미리 읽은 페이지는 (검색 조건, 페이지) 단위로 짧은 시간만 보관하고 한 번 사용하면 제거한다
+ * 전역 budget과 커넥션 풀 여유분을 확인해 foreground 쿼리와 커넥션을 다투지 않도록 한다
+ * 미리 읽기도 요청이 선택한 엔진(JPA, querydsl-sql)으로 실행하며, 캐시도 엔진별로 나눈다
+ */
+@Slf4j
+@Component
+public class MemberPagePrefetcher {
+
+    private final MemberRepository memberRepository;
+
+    private final MemberSqlRepository memberSqlRepository;
+
+    // 라우팅/지연 프록시를 벗긴 실제 Hikari 풀들 (routing이 켜져 있으면 primary와 replica들)
+    private final List<HikariDataSource> pools;
+
+    private final long ttlMillis;
+
+    private final int maxEntries;
+
+    private final int reservedConnections;
+
+    private final Semaphore budget;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<PageKey, CachedPage> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong prefetched = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final AtomicLong expired = new AtomicLong();
+
+    public MemberPagePrefetcher(MemberRepository memberRepository,
+                                MemberSqlRepository memberSqlRepository,
+                                DataSource dataSource,
+                                @Value("${member.prefetch.ttl-ms:5000}") long ttlMillis,
+                                @Value("${member.prefetch.max-entries:1000}") int maxEntries,
+                                @Value("${member.prefetch.budget:2}") int budget,
+                                @Value("${member.prefetch.reserved-connections:2}") int reservedConnections) {
+        this.memberRepository = memberRepository;
+        this.memberSqlRepository = memberSqlRepository;
+        this.pools = hikariPools(dataSource);
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.reservedConnections = reservedConnections;
+        this.budget = new Semaphore(budget);
+        this.executor = new ThreadPoolExecutor(budget, budget, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(budget), new PrefetchThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, boolean sql) {
+        PageKey key = new PageKey(condition.copy(), pageable, sql);
+        CachedPage cached = cache.remove(key);
+        Page<MemberTeamDto> page;
+
+        if (cached != null && !cached.isExpired()) {
+            hits.incrementAndGet();
+            page = cached.page;
+        } else {
+            if (cached != null) {
+                expired.incrementAndGet();
+            }
+
+            misses.incrementAndGet();
+            page = search(key);
+        }
+
+        if (page.hasNext()) {
+            prefetch(new PageKey(key.condition, pageable.next(), sql));
+        }
+
+        return page;
+    }
+
+    public PrefetchStats getStats() {
+        return new PrefetchStats(hits.get(), misses.get(), prefetched.get(), skipped.get(), expired.get(), cache.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void prefetch(PageKey key) {
+        evictExpired();
+
+        if (cache.containsKey(key) || cache.size() >= maxEntries || !hasSpareConnections() || !budget.tryAcquire()) {
+            skipped.incrementAndGet();
+            return;
+        }
+
+        try {
+            executor.execute(() -> load(key));
+        } catch (RejectedExecutionException e) {
+            budget.release();
+            skipped.incrementAndGet();
+        }
+    }
+
+    private void load(PageKey key) {
+        try {
+            Page<MemberTeamDto> page = search(key);
+            cache.put(key, new CachedPage(page, System.currentTimeMillis() + ttlMillis));
+            prefetched.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("prefetch failed. condition={}, pageable={}", key.condition, key.pageable, e);
+        } finally {
+            budget.release();
+        }
+    }
+
+    private Page<MemberTeamDto> search(PageKey key) {
+        return key.sql
+                ? memberSqlRepository.searchPageComplex(key.condition, key.pageable)
+                : memberRepository.searchPageComplex(key.condition, key.pageable);
+    }
+
+    /**
+     * 어느 풀이든 여유 커넥션이 reservedConnections 이하로 남았거나 대기 중인 스레드가 있으면 prefetch 하지 않는다
+     * 읽기가 replica에서 primary로 넘어갈 수 있으므로 모든 풀을 확인한다
+     *
+     * @return
+     */
+    private boolean hasSpareConnections() {
+        for (HikariDataSource hikariDataSource : pools) {
+            HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+
+            if (pool != null
+                    && (pool.getThreadsAwaitingConnection() > 0 || pool.getIdleConnections() <= reservedConnections)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * LazyConnectionDataSourceProxy 같은 위임 DataSource와 ReadWriteRoutingDataSource를 따라가 Hikari 풀을 모은다
+     *
+     * @param dataSource
+     * @return
+     */
+    static List<HikariDataSource> hikariPools(DataSource dataSource) {
+        List<HikariDataSource> pools = new ArrayList<>();
+
+        if (dataSource instanceof HikariDataSource) {
+            pools.add((HikariDataSource) dataSource);
+        } else if (dataSource instanceof DelegatingDataSource) {
+            pools.addAll(hikariPools(((DelegatingDataSource) dataSource).getTargetDataSource()));
+        } else if (dataSource instanceof ReadWriteRoutingDataSource) {
+            ((ReadWriteRoutingDataSource) dataSource).getTargets().forEach(target -> pools.addAll(hikariPools(target)));
+        }
+
+        return pools;
+    }
+
+    private void evictExpired() {
+        cache.entrySet().removeIf(entry -> {
+            if (entry.getValue().isExpired()) {
+                expired.incrementAndGet();
+                return true;
+            }
+
+            return false;
+        });
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class PageKey {
+
+        private final MemberSearchCondition condition;
+
+        private final Pageable pageable;
+
+        private final boolean sql;
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedPage {
+
+        private final Page<MemberTeamDto> page;
+
+        private final long expiresAt;
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+
+    private static class PrefetchThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "member-prefetch-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+
+            return thread;
+        }
+    }
+}
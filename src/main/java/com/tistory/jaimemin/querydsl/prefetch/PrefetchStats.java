@@ -0,0 +1,39 @@
+package com.tistory.jaimemin.querydsl.prefetch;
+
+import lombok.Data;
+
+@Data
+public class PrefetchStats {
+
+    private long hits;
+
+    private long misses;
+
+    private long prefetched;
+
+    private long skipped;
+
+    private long expired;
+
+    private int cachedPages;
+
+    public PrefetchStats(long hits, long misses, long prefetched, long skipped, long expired, int cachedPages) {
+        this.hits = hits;
+        this.misses = misses;
+        this.prefetched = prefetched;
+        this.skipped = skipped;
+        this.expired = expired;
+        this.cachedPages = cachedPages;
+    }
+
+    /**
+     * prefetch 모드로 들어온 요청 중 미리 읽어둔 페이지로 응답한 비율
+     *
+     * @return
+     */
+    public double getHitRate() {
+        long total = hits + misses;
+
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,24 @@
+package com.tistory.jaimemin.querydsl.repository;
+
+import lombok.Getter;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * 본문 조회는 끝났지만 count 쿼리가 deadline을 넘긴 경우
+ * 호출자는 total 없이 조회한 본문만 응답할 수 있다
+ */
+@Getter
+public class CountDeadlineExceededException extends RuntimeException {
+
+    private final List<?> content;
+
+    private final Pageable pageable;
+
+    public CountDeadlineExceededException(List<?> content, Pageable pageable, Throwable cause) {
+        super("count query deadline exceeded", cause);
+        this.content = content;
+        this.pageable = pageable;
+    }
+}
@@ -4,20 +4,35 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.tistory.jaimemin.querydsl.bloom.UsernameBloomFilter;
+import com.tistory.jaimemin.querydsl.dictionary.TeamNameDictionary;
 import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
 import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
 import com.tistory.jaimemin.querydsl.dto.QMemberTeamDto;
 import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.MemberTombstone;
 import com.tistory.jaimemin.querydsl.entity.QMember;
 import com.tistory.jaimemin.querydsl.entity.QTeam;
+import com.tistory.jaimemin.querydsl.event.EntityChangeEventRegistrar;
+import com.tistory.jaimemin.querydsl.ngram.UsernameCandidates;
+import com.tistory.jaimemin.querydsl.ngram.UsernameTrigramIndex;
+import com.tistory.jaimemin.querydsl.repository.support.QueryDeadline;
+import com.tistory.jaimemin.querydsl.stats.TeamStatsMaintainer;
+import com.tistory.jaimemin.querydsl.version.ChangeVersionGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.tistory.jaimemin.querydsl.entity.QMember.member;
 import static com.tistory.jaimemin.querydsl.entity.QTeam.*;
@@ -27,23 +42,117 @@ import static com.tistory.jaimemin.querydsl.entity.QTeam.*;
 @Transactional(readOnly = true)
 public class MemberJpaRepository {
 
+    static final int[] IN_LIST_BUCKETS = {1, 4, 16, 64, 256};
+
     private final EntityManager entityManager;
 
     private final JPAQueryFactory queryFactory;
 
+    private final EntityChangeEventRegistrar entityChangeEventRegistrar;
+
+    private final ChangeVersionGenerator changeVersionGenerator;
+
+    private final TeamNameDictionary teamNameDictionary;
+
+    private final UsernameBloomFilter usernameBloomFilter;
+
+    private final UsernameTrigramIndex usernameTrigramIndex;
+
+    private final TeamStatsMaintainer teamStatsMaintainer;
+
     @Transactional
     public void save(Member member) {
         entityManager.persist(member);
     }
 
+    /**
+     * bulk 연산은 영속성 컨텍스트를 거치지 않으므로 실행 후 초기화하고 변경을 직접 알린다
+     * team_stats도 이벤트로 갱신되지 않으므로 같은 트랜잭션에서 다시 계산한다
+     *
+     * @param ageGoe
+     * @param amount
+     * @return
+     */
+    @Transactional
+    public long bulkAgePlus(int ageGoe, int amount) {
+        long count = queryFactory
+                .update(member)
+                // delta 동기화용 이전 상태 (SET의 오른쪽은 갱신 전 값)
+                .set(member.previousUsername, member.username)
+                .set(member.previousAge, member.age)
+                .set(member.previousTeamId, member.team.id)
+                .set(member.previousChangeVersion, member.changeVersion.coalesce(0L))
+                .set(member.age, member.age.add(amount))
+                .set(member.changeVersion, changeVersionGenerator.next())
+                .where(member.age.goe(ageGoe))
+                .execute();
+        teamStatsMaintainer.rebuild();
+        entityManager.clear();
+        entityChangeEventRegistrar.publishBulkChange(Member.class);
+
+        return count;
+    }
+
+    @Transactional
+    public long bulkDeleteByAgeGt(int age) {
+        long version = changeVersionGenerator.next();
+        List<Long> memberIds = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.age.gt(age))
+                .fetch();
+
+        for (Long memberId : memberIds) {
+            entityManager.persist(new MemberTombstone(memberId, version));
+        }
+
+        long count = queryFactory
+                .delete(member)
+                .where(member.age.gt(age))
+                .execute();
+        teamStatsMaintainer.rebuild();
+        entityManager.clear();
+        entityChangeEventRegistrar.publishBulkChange(Member.class);
+
+        return count;
+    }
+
     public Optional<Member> findById(Long id) {
         Member findMember = entityManager.find(Member.class, id);
 
         return Optional.ofNullable(findMember);
     }
 
+    /**
+     * id 목록을 member.id IN (...) 으로 한 번에 조회한다
+     * 중복 id는 한 번만 보내고, IN 목록 길이를 IN_LIST_BUCKETS 크기로 맞춰(마지막 id 반복) 쿼리 플랜 캐시에 쌓이는 쿼리 수를 제한한다
+     * 가장 큰 버킷보다 많으면 나눠서 조회한다
+     *
+     * @param ids
+     * @return 순서는 보장하지 않는다. 없는 id는 빠진다
+     */
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        int maxBucket = IN_LIST_BUCKETS[IN_LIST_BUCKETS.length - 1];
+        List<Member> members = new ArrayList<>(distinctIds.size());
+
+        for (int from = 0; from < distinctIds.size(); from += maxBucket) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + maxBucket, distinctIds.size()));
+
+            members.addAll(queryFactory
+                    .selectFrom(member)
+                    .where(member.id.in(padToBucket(chunk)))
+                    .fetch());
+        }
+
+        return members;
+    }
+
     public List<Member> findAll() {
-        return entityManager.createQuery("SELECT m FROM Member m", Member.class)
+        return QueryDeadline.apply(entityManager.createQuery("SELECT m FROM Member m", Member.class))
                 .getResultList();
     }
 
@@ -54,16 +163,16 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findByUsername(String username) {
-        return entityManager.createQuery("SELECT m FROM Member m WHERE m.username = :username", Member.class)
-                .setParameter("username", username)
-                .getResultList();
+        return usernameBloomFilter.guard(username, () -> QueryDeadline.apply(entityManager.createQuery("SELECT m FROM Member m WHERE m.username = :username", Member.class)
+                        .setParameter("username", username))
+                .getResultList());
     }
 
     public List<Member> findByUsernameQueryDsl(String username) {
-        return queryFactory
+        return usernameBloomFilter.guard(username, () -> queryFactory
                 .selectFrom(member)
                 .where(member.username.eq(username))
-                .fetch();
+                .fetch());
     }
 
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
@@ -100,6 +209,10 @@ public class MemberJpaRepository {
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (teamNameDictionary.isUnknown(condition.getTeamName())) {
+            return Collections.emptyList();
+        }
+
         return queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -112,6 +225,9 @@ public class MemberJpaRepository {
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername())
+                        , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                        , usernameStartsWith(condition.getUsernameStartsWith())
+                        , usernameContains(condition.getUsernameContains())
                         , teamNameEq(condition.getTeamName())
                         , ageGoe(condition.getAgeGoe())
                         , ageLoe(condition.getAgeLoe())
@@ -119,6 +235,23 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    private static List<Long> padToBucket(List<Long> ids) {
+        for (int bucket : IN_LIST_BUCKETS) {
+            if (ids.size() <= bucket) {
+                List<Long> padded = new ArrayList<>(bucket);
+                padded.addAll(ids);
+
+                while (padded.size() < bucket) {
+                    padded.add(ids.get(ids.size() - 1));
+                }
+
+                return padded;
+            }
+        }
+
+        throw new IllegalArgumentException("too many ids for one IN list: " + ids.size());
+    }
+
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
         return ageGoe(ageGoe).and(ageLoe(ageLoe));
     }
@@ -127,8 +260,54 @@ public class MemberJpaRepository {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
 
+    private BooleanExpression usernameIgnoreCaseEq(String username) {
+        return StringUtils.hasText(username) ? member.usernameNormalized.eq(Member.normalizeUsername(username)) : null;
+    }
+
+    /**
+     * LIKE 'x%'로 바뀌므로 username_normalized 인덱스 범위 검색이 된다
+     *
+     * @param prefix
+     * @return
+     */
+    private BooleanExpression usernameStartsWith(String prefix) {
+        return StringUtils.hasText(prefix) ? member.usernameNormalized.startsWith(Member.normalizeUsername(prefix)) : null;
+    }
+
+    /**
+     * 색인으로 후보를 얻으면 member_id IN (후보)로 좁힌 뒤 LIKE '%x%'로 확인한다 (후보가 비면 Querydsl이 1 = 2로 바꾼다)
+     * 색인의 마지막 스캔 이후 생긴 회원(member_id > maxIndexedId)은 색인에 없을 수 있으므로 후보에 더해 확인한다
+     * 3글자보다 짧거나 후보가 너무 많으면 LIKE만 쓴다
+     *
+     * @param fragment
+     * @return
+     */
+    private BooleanExpression usernameContains(String fragment) {
+        if (!StringUtils.hasText(fragment)) {
+            return null;
+        }
+
+        String normalized = Member.normalizeUsername(fragment);
+        UsernameCandidates candidates = usernameTrigramIndex.candidates(normalized);
+        BooleanExpression contains = member.usernameNormalized.contains(normalized);
+
+        if (candidates == null) {
+            return contains;
+        }
+
+        return member.id.in(candidates.getMemberIds())
+                .or(member.id.gt(candidates.getMaxIndexedId()))
+                .and(contains);
+    }
+
     private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+        if (!StringUtils.hasText(teamName)) {
+            return null;
+        }
+
+        Set<Long> teamIds = teamNameDictionary.teamIds(teamName);
+
+        return teamIds == null ? team.name.eq(teamName) : member.team.id.in(teamIds);
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
@@ -0,0 +1,102 @@
+package com.tistory.jaimemin.querydsl.repository;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLBindings;
+import com.querydsl.sql.SQLQuery;
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static com.tistory.jaimemin.querydsl.repository.sql.SMember.member;
+import static com.tistory.jaimemin.querydsl.repository.sql.STeam.team;
+
+/**
+ * MemberSqlRepository.search와 같은 조건을 R2DBC로 실행하는 non-blocking 조회
+ * SQL은 MemberSqlConditions의 querydsl-sql predicate로 만들고(JDBC 커넥션 없이 직렬화만 한다) DatabaseClient로 실행한다
+ * ConnectionFactory는 r2dbc-pool 커넥션 풀이다 (spring.r2dbc.pool)
+ */
+@Repository
+public class MemberReactiveRepository {
+
+    private final DatabaseClient databaseClient;
+
+    private final Configuration querydslSqlConfiguration;
+
+    private final MemberSqlConditions memberSqlConditions;
+
+    public MemberReactiveRepository(ConnectionFactory connectionFactory,
+                                    Configuration querydslSqlConfiguration,
+                                    MemberSqlConditions memberSqlConditions) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+        this.querydslSqlConfiguration = querydslSqlConfiguration;
+        this.memberSqlConditions = memberSqlConditions;
+    }
+
+    /**
+     * 행 단위로 흘려보내므로 구독자의 요청량(backpressure)만큼만 읽어 온다
+     *
+     * @param condition
+     * @return
+     */
+    public Flux<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (memberSqlConditions.isUnknownTeam(condition)) {
+            return Flux.empty();
+        }
+
+        SQLBindings sql = new SQLQuery<Void>(querydslSqlConfiguration)
+                .select(member.memberId, member.username, member.age, team.teamId, team.name)
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(memberSqlConditions.where(condition))
+                .getSQL();
+        List<Object> bindings = sql.getNullFriendlyBindings();
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(namedParameters(sql.getSQL()));
+
+        for (int i = 0; i < bindings.size(); i++) {
+            spec = spec.bind("p" + i, bindings.get(i));
+        }
+
+        return spec.map((row, metadata) -> toDto(row)).all();
+    }
+
+    /**
+     * querydsl-sql의 ? 자리를 DatabaseClient의 이름 있는 파라미터(:p0, :p1 ...)로 바꾼다
+     * 상수는 모두 바인딩으로 나오므로 SQL 본문의 ?는 파라미터 자리뿐이다
+     *
+     * @param sql
+     * @return
+     */
+    private static String namedParameters(String sql) {
+        StringBuilder named = new StringBuilder(sql.length() + 16);
+        int index = 0;
+
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+
+            if (c == '?') {
+                named.append(":p").append(index++);
+            } else {
+                named.append(c);
+            }
+        }
+
+        return named.toString();
+    }
+
+    private MemberTeamDto toDto(Row row) {
+        Integer age = row.get(2, Integer.class);
+
+        return new MemberTeamDto(
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                age == null ? 0 : age,
+                row.get(3, Long.class),
+                row.get(4, String.class));
+    }
+}
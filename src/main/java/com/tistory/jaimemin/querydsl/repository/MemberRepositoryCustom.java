@@ -2,10 +2,12 @@ package com.tistory.jaimemin.querydsl.repository;
 
 import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
 import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import com.tistory.jaimemin.querydsl.entity.Member;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 
 public interface MemberRepositoryCustom {
 
@@ -14,4 +16,47 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    List<Map<String, Object>> searchFields(MemberSearchCondition condition, List<MemberSearchField> fields);
+
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberSearchField> fields, Pageable pageable);
+
+    List<MemberTeamDto> searchChangedSince(MemberSearchCondition condition, long version);
+
+    List<Long> findDeletedMemberIdsSince(long version);
+
+    /**
+     * 버전 이후 바뀌었고 버전 시점에는 검색 조건에 맞았을 수 있는 회원 id
+     * searchChangedSince 결과에 없으면 조건에서 벗어난 회원이다
+     *
+     * @param condition
+     * @param version
+     * @return
+     */
+    List<Long> findLeftMemberIdsSince(MemberSearchCondition condition, long version);
+
+    /**
+     * 여러 검색 조건을 조건 형태(shape)별 쿼리 하나씩으로 실행하고 결과를 조건 순서대로 나눠 돌려준다
+     *
+     * @param conditions
+     * @return conditions와 같은 순서, 같은 크기
+     */
+    List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions);
+
+    /**
+     * 나이 구간별 회원 수. 구간 번호를 CASE로 계산해 group by 하므로 회원을 읽어 오지 않는다
+     *
+     * @param condition
+     * @param bounds    오름차순 경계. [b0, b1), [b1, b2) ... 에 b0 미만과 마지막 경계 이상을 더한다
+     * @return bounds.length + 1 크기. 0번은 b0 미만, 마지막은 마지막 경계 이상
+     */
+    long[] ageHistogram(MemberSearchCondition condition, int[] bounds);
+
+    /**
+     * username Bloom filter가 없다고 판정하면 DB를 조회하지 않는다
+     *
+     * @param username
+     * @return
+     */
+    List<Member> findByUsername(String username);
 }
@@ -1,13 +1,26 @@
 package com.tistory.jaimemin.querydsl.repository;
 
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.tistory.jaimemin.querydsl.bloom.UsernameBloomFilter;
+import com.tistory.jaimemin.querydsl.dictionary.TeamNameDictionary;
 import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
 import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
 import com.tistory.jaimemin.querydsl.dto.QMemberTeamDto;
 import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.QTeam;
+import com.tistory.jaimemin.querydsl.ngram.UsernameCandidates;
+import com.tistory.jaimemin.querydsl.ngram.UsernameTrigramIndex;
+import com.tistory.jaimemin.querydsl.repository.support.CountQueryOptimizer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -15,17 +28,43 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.util.StringUtils;
 
+import javax.persistence.QueryTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import static com.tistory.jaimemin.querydsl.entity.QMember.member;
+import static com.tistory.jaimemin.querydsl.entity.QMemberTombstone.memberTombstone;
 import static com.tistory.jaimemin.querydsl.entity.QTeam.team;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    // 배치 검색에서 OR로 묶는 조건 수. 넘으면 같은 shape를 여러 쿼리로 나눈다
+    private static final int BATCH_CONDITIONS_PER_QUERY = 32;
+
+    // 나이 히스토그램 경계 최대 개수. CASE 분기 수가 된다
+    static final int MAX_HISTOGRAM_BOUNDS = 64;
+
     private final JPAQueryFactory queryFactory;
 
+    private final TeamNameDictionary teamNameDictionary;
+
+    private final UsernameBloomFilter usernameBloomFilter;
+
+    private final UsernameTrigramIndex usernameTrigramIndex;
+
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (teamNameDictionary.isUnknown(condition.getTeamName())) {
+            return Collections.emptyList();
+        }
+
         return queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -38,6 +77,9 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername())
+                        , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                        , usernameStartsWith(condition.getUsernameStartsWith())
+                        , usernameContains(condition.getUsernameContains())
                         , teamNameEq(condition.getTeamName())
                         , ageGoe(condition.getAgeGoe())
                         , ageLoe(condition.getAgeLoe())
@@ -55,6 +97,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      */
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        if (teamNameDictionary.isUnknown(condition.getTeamName())) {
+            return Page.empty(pageable);
+        }
+
         QueryResults<MemberTeamDto> results = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -67,6 +113,9 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername())
+                        , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                        , usernameStartsWith(condition.getUsernameStartsWith())
+                        , usernameContains(condition.getUsernameContains())
                         , teamNameEq(condition.getTeamName())
                         , ageGoe(condition.getAgeGoe())
                         , ageLoe(condition.getAgeLoe())
@@ -83,7 +132,11 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+        if (teamNameDictionary.isUnknown(condition.getTeamName())) {
+            return Page.empty(pageable);
+        }
+
+        JPAQuery<MemberTeamDto> contentQuery = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -95,27 +148,413 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername())
+                        , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                        , usernameStartsWith(condition.getUsernameStartsWith())
+                        , usernameContains(condition.getUsernameContains())
                         , teamNameEq(condition.getTeamName())
                         , ageGoe(condition.getAgeGoe())
                         , ageLoe(condition.getAgeLoe())
-                )
+                );
+
+        // 팀명 조건이 팀 id로 바뀌면 team은 select에서만 쓰이므로 count 쿼리에서 join이 빠진다
+        JPAQuery<Long> countQuery = CountQueryOptimizer.derive(queryFactory, contentQuery);
+
+        List<MemberTeamDto> content = contentQuery
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+//        return new PageImpl<>(content, pageable, total);
+        return PageableExecutionUtils.getPage(content, pageable, () -> fetchCount(countQuery, content, pageable));
+    }
+
+    @Override
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, List<MemberSearchField> fields) {
+        if (teamNameDictionary.isUnknown(condition.getTeamName())) {
+            return Collections.emptyList();
+        }
+
+        return toMaps(fieldsQuery(condition, fields).fetch(), fields);
+    }
+
+    /**
+     * 요청한 컬럼만 조회하고, 팀 컬럼이나 팀명 조건이 없으면 team 조인을 생략한다
+     *
+     * @param condition
+     * @param fields
+     * @param pageable
+     * @return
+     */
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberSearchField> fields, Pageable pageable) {
+        if (teamNameDictionary.isUnknown(condition.getTeamName())) {
+            return Page.empty(pageable);
+        }
+
+        List<Tuple> content = fieldsQuery(condition, fields)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
         JPAQuery<Long> countQuery = queryFactory
                 .select(member.count())
+                .from(member);
+
+        if (teamNameRequiresJoin(condition.getTeamName())) {
+            countQuery.leftJoin(member.team, team);
+        }
+
+        countQuery.where(
+                usernameEq(condition.getUsername())
+                , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                , usernameStartsWith(condition.getUsernameStartsWith())
+                , usernameContains(condition.getUsernameContains())
+                , teamNameEq(condition.getTeamName())
+                , ageGoe(condition.getAgeGoe())
+                , ageLoe(condition.getAgeLoe())
+        );
+
+        return PageableExecutionUtils.getPage(toMaps(content, fields), pageable, countQuery::fetchOne);
+    }
+
+    /**
+     * 회원 자체가 바뀌었거나 소속 팀(팀명)이 바뀐 행만 조회한다
+     *
+     * @param condition
+     * @param version
+     * @return
+     */
+    @Override
+    public List<MemberTeamDto> searchChangedSince(MemberSearchCondition condition, long version) {
+        if (teamNameDictionary.isUnknown(condition.getTeamName())) {
+            return Collections.emptyList();
+        }
+
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
                 .from(member)
                 .leftJoin(member.team, team)
+                .where(
+                        member.changeVersion.gt(version).or(team.changeVersion.gt(version))
+                        , usernameEq(condition.getUsername())
+                        , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                        , usernameStartsWith(condition.getUsernameStartsWith())
+                        , usernameContains(condition.getUsernameContains())
+                        , teamNameEq(condition.getTeamName())
+                        , ageGoe(condition.getAgeGoe())
+                        , ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    /**
+     * 삭제된 행은 검색 조건으로 거를 수 없으므로 버전 이후의 tombstone을 모두 돌려준다
+     *
+     * @param version
+     * @return
+     */
+    @Override
+    public List<Long> findDeletedMemberIdsSince(long version) {
+        return queryFactory
+                .select(memberTombstone.memberId)
+                .from(memberTombstone)
+                .where(memberTombstone.changeVersion.gt(version))
+                .orderBy(memberTombstone.changeVersion.asc())
+                .fetch();
+    }
+
+    /**
+     * 회원 자신이 바뀌었으면 previous*(마지막 수정 직전 상태)로 since 시점에 조건에 맞았는지 본다
+     * 그 상태도 since 이후의 것이면(since 이후 두 번 이상 수정) since 시점 상태를 알 수 없으므로 포함한다
+     * 소속 팀만 바뀌었으면(팀명 변경) 팀명 조건이 있을 때만 나머지 조건으로 거른다
+     * 팀명은 현재 이름으로 비교한다
+     *
+     * @param condition
+     * @param version
+     * @return
+     */
+    @Override
+    public List<Long> findLeftMemberIdsSince(MemberSearchCondition condition, long version) {
+        BooleanExpression previouslyMatched = previousStateMatches(condition);
+
+        // 첫 동기화는 클라이언트가 가진 회원이 없고, 조건이 없으면 누구도 조건에서 벗어날 수 없다
+        if (version <= 0 || previouslyMatched == null) {
+            return Collections.emptyList();
+        }
+
+        BooleanExpression memberChanged = member.changeVersion.gt(version)
+                .and(member.previousChangeVersion.isNotNull())
+                .and(member.previousChangeVersion.gt(version).or(previouslyMatched));
+        BooleanExpression teamRenamed = StringUtils.hasText(condition.getTeamName())
+                ? Expressions.allOf(
+                        member.changeVersion.loe(version)
+                        , team.changeVersion.gt(version)
+                        , usernameEq(condition.getUsername())
+                        , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                        , usernameStartsWith(condition.getUsernameStartsWith())
+                        , usernameContains(condition.getUsernameContains())
+                        , ageGoe(condition.getAgeGoe())
+                        , ageLoe(condition.getAgeLoe()))
+                : null;
+
+        return queryFactory
+                .select(member.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(Expressions.anyOf(memberChanged, teamRenamed))
+                .fetch();
+    }
+
+    /**
+     * 검색 조건을 previous* 컬럼에 적용한다. 조건이 없으면 null
+     *
+     * @param condition
+     * @return
+     */
+    private BooleanExpression previousStateMatches(MemberSearchCondition condition) {
+        QTeam previousTeam = new QTeam("previousTeam");
+
+        return Expressions.allOf(
+                StringUtils.hasText(condition.getUsername())
+                        ? member.previousUsername.eq(condition.getUsername()) : null
+                , StringUtils.hasText(condition.getUsernameIgnoreCase())
+                        ? member.previousUsername.lower().eq(Member.normalizeUsername(condition.getUsernameIgnoreCase())) : null
+                , StringUtils.hasText(condition.getUsernameStartsWith())
+                        ? member.previousUsername.lower().startsWith(Member.normalizeUsername(condition.getUsernameStartsWith())) : null
+                , StringUtils.hasText(condition.getUsernameContains())
+                        ? member.previousUsername.lower().contains(Member.normalizeUsername(condition.getUsernameContains())) : null
+                , StringUtils.hasText(condition.getTeamName())
+                        ? member.previousTeamId.in(JPAExpressions
+                        .select(previousTeam.id)
+                        .from(previousTeam)
+                        .where(previousTeam.name.eq(condition.getTeamName()))) : null
+                , condition.getAgeGoe() != null ? member.previousAge.goe(condition.getAgeGoe()) : null
+                , condition.getAgeLoe() != null ? member.previousAge.loe(condition.getAgeLoe()) : null
+        );
+    }
+
+    /**
+     * shape가 username 하나, teamName 하나뿐이면 IN 목록으로, 나머지는 조건별 predicate를 OR로 묶는다
+     * JPQL에는 UNION ALL이 없으므로 태그 컬럼 대신 각 행을 조건마다 Java로 다시 평가해 나눈다
+     *
+     * @param conditions
+     * @return
+     */
+    @Override
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+        Map<MemberSearchCondition, List<MemberTeamDto>> results = new LinkedHashMap<>();
+        Map<List<String>, List<MemberSearchCondition>> shapes = new LinkedHashMap<>();
+
+        for (MemberSearchCondition condition : conditions) {
+            if (results.containsKey(condition)) {
+                continue;
+            }
+
+            MemberSearchCondition key = condition.copy();
+            results.put(key, new ArrayList<>());
+
+            if (!teamNameDictionary.isUnknown(key.getTeamName())) {
+                shapes.computeIfAbsent(MemberSearchConditionMatcher.shapeOf(key), shape -> new ArrayList<>()).add(key);
+            }
+        }
+
+        shapes.forEach((shape, group) -> {
+            for (int from = 0; from < group.size(); from += BATCH_CONDITIONS_PER_QUERY) {
+                List<MemberSearchCondition> chunk = group.subList(from, Math.min(from + BATCH_CONDITIONS_PER_QUERY, group.size()));
+
+                for (MemberTeamDto row : batchQuery(shape, chunk).fetch()) {
+                    for (MemberSearchCondition condition : chunk) {
+                        if (MemberSearchConditionMatcher.matches(condition, row)) {
+                            results.get(condition).add(row);
+                        }
+                    }
+                }
+            }
+        });
+
+        return conditions.stream()
+                .map(results::get)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 경계는 검증한 int라서 JPQL에 리터럴로 넣는다
+     * 파라미터로 바인딩하면 select와 group by의 CASE가 서로 다른 식이 되어 group by가 되지 않는다
+     *
+     * @param condition
+     * @param bounds
+     * @return
+     */
+    @Override
+    public long[] ageHistogram(MemberSearchCondition condition, int[] bounds) {
+        validateHistogramBounds(bounds);
+        long[] counts = new long[bounds.length + 1];
+
+        if (teamNameDictionary.isUnknown(condition.getTeamName())) {
+            return counts;
+        }
+
+        StringBuilder template = new StringBuilder("case");
+
+        for (int i = 0; i < bounds.length; i++) {
+            template.append(" when {0} < ").append(bounds[i]).append(" then ").append(i);
+        }
+
+        template.append(" else ").append(bounds.length).append(" end");
+
+        NumberExpression<Integer> bucket = Expressions.numberTemplate(Integer.class, template.toString(), member.age);
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(bucket, member.count())
+                .from(member);
+
+        if (teamNameRequiresJoin(condition.getTeamName())) {
+            query.leftJoin(member.team, team);
+        }
+
+        List<Tuple> rows = query
                 .where(
                         usernameEq(condition.getUsername())
+                        , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                        , usernameStartsWith(condition.getUsernameStartsWith())
+                        , usernameContains(condition.getUsernameContains())
                         , teamNameEq(condition.getTeamName())
                         , ageGoe(condition.getAgeGoe())
                         , ageLoe(condition.getAgeLoe())
-                );
+                )
+                .groupBy(bucket)
+                .fetch();
 
-//        return new PageImpl<>(content, pageable, total);
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        for (Tuple row : rows) {
+            counts[row.get(bucket)] = row.get(member.count());
+        }
+
+        return counts;
+    }
+
+    @Override
+    public List<Member> findByUsername(String username) {
+        return usernameBloomFilter.guard(username, () -> queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username))
+                .fetch());
+    }
+
+    private static void validateHistogramBounds(int[] bounds) {
+        if (bounds == null || bounds.length == 0 || bounds.length > MAX_HISTOGRAM_BOUNDS) {
+            throw new IllegalArgumentException("bounds must have 1.." + MAX_HISTOGRAM_BOUNDS + " values");
+        }
+
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("bounds must be strictly ascending: " + Arrays.toString(bounds));
+            }
+        }
+    }
+
+    private JPAQuery<MemberTeamDto> batchQuery(List<String> shape, List<MemberSearchCondition> chunk) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc());
+
+        if (shape.equals(Collections.singletonList(MemberSearchConditionMatcher.USERNAME))) {
+            return query.where(member.username.in(chunk.stream()
+                    .map(MemberSearchCondition::getUsername)
+                    .collect(Collectors.toList())));
+        }
+
+        if (shape.equals(Collections.singletonList(MemberSearchConditionMatcher.TEAM_NAME))) {
+            return query.where(teamNameIn(chunk.stream()
+                    .map(MemberSearchCondition::getTeamName)
+                    .collect(Collectors.toList())));
+        }
+
+        BooleanBuilder anyCondition = new BooleanBuilder();
+
+        for (MemberSearchCondition condition : chunk) {
+            anyCondition.or(ExpressionUtils.allOf(
+                    usernameEq(condition.getUsername())
+                    , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                    , usernameStartsWith(condition.getUsernameStartsWith())
+                    , usernameContains(condition.getUsernameContains())
+                    , teamNameEq(condition.getTeamName())
+                    , ageGoe(condition.getAgeGoe())
+                    , ageLoe(condition.getAgeLoe())
+            ));
+        }
+
+        return query.where(anyCondition);
+    }
+
+    /**
+     * count 쿼리만 deadline을 넘기면 본문은 살려서 CountDeadlineExceededException으로 돌려준다
+     *
+     * @param countQuery
+     * @param content
+     * @param pageable
+     * @return
+     */
+    private long fetchCount(JPAQuery<Long> countQuery, List<?> content, Pageable pageable) {
+        try {
+            return countQuery.fetchOne();
+        } catch (QueryTimeoutException e) {
+            throw new CountDeadlineExceededException(content, pageable, e);
+        }
+    }
+
+    private JPAQuery<Tuple> fieldsQuery(MemberSearchCondition condition, List<MemberSearchField> fields) {
+        Expression<?>[] paths = fields.stream()
+                .map(MemberSearchField::getPath)
+                .toArray(Expression[]::new);
+        boolean teamJoinRequired = teamNameRequiresJoin(condition.getTeamName())
+                || fields.stream().anyMatch(MemberSearchField::isTeamJoinRequired);
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(paths)
+                .from(member);
+
+        if (teamJoinRequired) {
+            query.leftJoin(member.team, team);
+        }
+
+        return query.where(
+                usernameEq(condition.getUsername())
+                , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                , usernameStartsWith(condition.getUsernameStartsWith())
+                , usernameContains(condition.getUsernameContains())
+                , teamNameEq(condition.getTeamName())
+                , ageGoe(condition.getAgeGoe())
+                , ageLoe(condition.getAgeLoe())
+        );
+    }
+
+    private List<Map<String, Object>> toMaps(List<Tuple> tuples, List<MemberSearchField> fields) {
+        return tuples.stream()
+                .map(tuple -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+
+                    for (int i = 0; i < fields.size(); i++) {
+                        row.put(fields.get(i).getName(), tuple.get(i, Object.class));
+                    }
+
+                    return row;
+                })
+                .collect(Collectors.toList());
     }
 
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
@@ -126,8 +565,80 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
 
+    private BooleanExpression usernameIgnoreCaseEq(String username) {
+        return StringUtils.hasText(username) ? member.usernameNormalized.eq(Member.normalizeUsername(username)) : null;
+    }
+
+    /**
+     * LIKE 'x%'로 바뀌므로 username_normalized 인덱스 범위 검색이 된다
+     *
+     * @param prefix
+     * @return
+     */
+    private BooleanExpression usernameStartsWith(String prefix) {
+        return StringUtils.hasText(prefix) ? member.usernameNormalized.startsWith(Member.normalizeUsername(prefix)) : null;
+    }
+
+    /**
+     * 색인으로 후보를 얻으면 member_id IN (후보)로 좁힌 뒤 LIKE '%x%'로 확인한다 (후보가 비면 Querydsl이 1 = 2로 바꾼다)
+     * 색인의 마지막 스캔 이후 생긴 회원(member_id > maxIndexedId)은 색인에 없을 수 있으므로 후보에 더해 확인한다
+     * 3글자보다 짧거나 후보가 너무 많으면 LIKE만 쓴다
+     *
+     * @param fragment
+     * @return
+     */
+    private BooleanExpression usernameContains(String fragment) {
+        if (!StringUtils.hasText(fragment)) {
+            return null;
+        }
+
+        String normalized = Member.normalizeUsername(fragment);
+        UsernameCandidates candidates = usernameTrigramIndex.candidates(normalized);
+        BooleanExpression contains = member.usernameNormalized.contains(normalized);
+
+        if (candidates == null) {
+            return contains;
+        }
+
+        return member.id.in(candidates.getMemberIds())
+                .or(member.id.gt(candidates.getMaxIndexedId()))
+                .and(contains);
+    }
+
+    /**
+     * 사전으로 팀 id를 알 수 있으면 member.team_id로 비교해 team 조인 없이 거른다
+     *
+     * @param teamName
+     * @return
+     */
     private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+        if (!StringUtils.hasText(teamName)) {
+            return null;
+        }
+
+        Set<Long> teamIds = teamNameDictionary.teamIds(teamName);
+
+        return teamIds == null ? team.name.eq(teamName) : member.team.id.in(teamIds);
+    }
+
+    private BooleanExpression teamNameIn(List<String> teamNames) {
+        Set<Long> teamIds = new TreeSet<>();
+
+        for (String teamName : teamNames) {
+            Set<Long> ids = teamNameDictionary.teamIds(teamName);
+
+            if (ids == null) {
+                return team.name.in(teamNames);
+            }
+
+            teamIds.addAll(ids);
+        }
+
+        return member.team.id.in(teamIds);
+    }
+
+    private boolean teamNameRequiresJoin(String teamName) {
+        return StringUtils.hasText(teamName) && teamNameDictionary.teamIds(teamName) == null;
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
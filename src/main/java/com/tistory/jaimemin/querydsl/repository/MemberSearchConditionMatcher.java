@@ -0,0 +1,106 @@
+package com.tistory.jaimemin.querydsl.repository;
+
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 배치 검색 결과를 조건별로 나누기 위해 MemberRepositoryImpl의 where 조건을 Java로 다시 평가한다
+ * MemberSearchCondition에 조건을 추가하면 shapeOf, matches도 함께 바꿔야 한다
+ */
+final class MemberSearchConditionMatcher {
+
+    static final String USERNAME = "username";
+
+    static final String USERNAME_IGNORE_CASE = "usernameIgnoreCase";
+
+    static final String USERNAME_STARTS_WITH = "usernameStartsWith";
+
+    static final String USERNAME_CONTAINS = "usernameContains";
+
+    static final String TEAM_NAME = "teamName";
+
+    static final String AGE_GOE = "ageGoe";
+
+    static final String AGE_LOE = "ageLoe";
+
+    private MemberSearchConditionMatcher() {
+    }
+
+    /**
+     * 값이 있는 조건 이름 목록. 같은 shape의 조건들은 같은 형태의 SQL로 묶을 수 있다
+     *
+     * @param condition
+     * @return
+     */
+    static List<String> shapeOf(MemberSearchCondition condition) {
+        List<String> shape = new ArrayList<>(4);
+
+        if (StringUtils.hasText(condition.getUsername())) {
+            shape.add(USERNAME);
+        }
+
+        if (StringUtils.hasText(condition.getUsernameIgnoreCase())) {
+            shape.add(USERNAME_IGNORE_CASE);
+        }
+
+        if (StringUtils.hasText(condition.getUsernameStartsWith())) {
+            shape.add(USERNAME_STARTS_WITH);
+        }
+
+        if (StringUtils.hasText(condition.getUsernameContains())) {
+            shape.add(USERNAME_CONTAINS);
+        }
+
+        if (StringUtils.hasText(condition.getTeamName())) {
+            shape.add(TEAM_NAME);
+        }
+
+        if (condition.getAgeGoe() != null) {
+            shape.add(AGE_GOE);
+        }
+
+        if (condition.getAgeLoe() != null) {
+            shape.add(AGE_LOE);
+        }
+
+        return shape;
+    }
+
+    static boolean matches(MemberSearchCondition condition, MemberTeamDto row) {
+        if (StringUtils.hasText(condition.getUsername()) && !condition.getUsername().equals(row.getUsername())) {
+            return false;
+        }
+
+        if (StringUtils.hasText(condition.getUsernameIgnoreCase())
+                && !Member.normalizeUsername(condition.getUsernameIgnoreCase()).equals(Member.normalizeUsername(row.getUsername()))) {
+            return false;
+        }
+
+        if (StringUtils.hasText(condition.getUsernameStartsWith())
+                && (row.getUsername() == null
+                || !Member.normalizeUsername(row.getUsername()).startsWith(Member.normalizeUsername(condition.getUsernameStartsWith())))) {
+            return false;
+        }
+
+        if (StringUtils.hasText(condition.getUsernameContains())
+                && (row.getUsername() == null
+                || !Member.normalizeUsername(row.getUsername()).contains(Member.normalizeUsername(condition.getUsernameContains())))) {
+            return false;
+        }
+
+        if (StringUtils.hasText(condition.getTeamName()) && !condition.getTeamName().equals(row.getTeamName())) {
+            return false;
+        }
+
+        if (condition.getAgeGoe() != null && row.getAge() < condition.getAgeGoe()) {
+            return false;
+        }
+
+        return condition.getAgeLoe() == null || row.getAge() <= condition.getAgeLoe();
+    }
+}
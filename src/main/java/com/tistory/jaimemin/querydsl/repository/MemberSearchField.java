@@ -0,0 +1,70 @@
+package com.tistory.jaimemin.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.tistory.jaimemin.querydsl.entity.QMember.member;
+import static com.tistory.jaimemin.querydsl.entity.QTeam.team;
+
+/**
+ * fields= 파라미터로 고를 수 있는 MemberTeamDto 컬럼
+ * teamId는 member.team_id 외래키로 조회하므로 team 조인이 필요 없다
+ */
+@Getter
+public enum MemberSearchField {
+
+    MEMBER_ID("memberId", member.id, false),
+    USERNAME("username", member.username, false),
+    AGE("age", member.age, false),
+    TEAM_ID("teamId", member.team.id, false),
+    TEAM_NAME("teamName", team.name, true);
+
+    private final String name;
+
+    private final Expression<?> path;
+
+    private final boolean teamJoinRequired;
+
+    MemberSearchField(String name, Expression<?> path, boolean teamJoinRequired) {
+        this.name = name;
+        this.path = path;
+        this.teamJoinRequired = teamJoinRequired;
+    }
+
+    /**
+     * "memberId,username" 형태를 중복 없이 요청 순서대로 변환한다
+     *
+     * @param fields
+     * @return
+     */
+    public static List<MemberSearchField> parse(String fields) {
+        List<MemberSearchField> result = new ArrayList<>();
+
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            MemberSearchField field = Arrays.stream(values())
+                    .filter(value -> value.name.equals(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("unknown field: " + trimmed));
+
+            if (!result.contains(field)) {
+                result.add(field);
+            }
+        }
+
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("fields must not be empty");
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+package com.tistory.jaimemin.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.tistory.jaimemin.querydsl.dictionary.TeamNameDictionary;
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.ngram.UsernameCandidates;
+import com.tistory.jaimemin.querydsl.ngram.UsernameTrigramIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Set;
+
+import static com.tistory.jaimemin.querydsl.repository.sql.SMember.member;
+import static com.tistory.jaimemin.querydsl.repository.sql.STeam.team;
+
+/**
+ * MemberSearchCondition을 querydsl-sql(SMember, STeam) predicate로 바꾼다
+ * JDBC 경로(MemberSqlRepository)와 R2DBC 경로(MemberReactiveRepository)가 같은 조건을 쓴다
+ */
+@Component
+@RequiredArgsConstructor
+class MemberSqlConditions {
+
+    private final TeamNameDictionary teamNameDictionary;
+
+    private final UsernameTrigramIndex usernameTrigramIndex;
+
+    /**
+     * 사전에 없는 팀명이면 조회하지 않고 빈 결과를 돌려도 된다
+     *
+     * @param condition
+     * @return
+     */
+    boolean isUnknownTeam(MemberSearchCondition condition) {
+        return teamNameDictionary.isUnknown(condition.getTeamName());
+    }
+
+    /**
+     * 팀명을 사전으로 team_id로 바꾸지 못하면 team을 조인해 이름으로 비교한다
+     *
+     * @param condition
+     * @return
+     */
+    boolean requiresTeamJoin(MemberSearchCondition condition) {
+        return StringUtils.hasText(condition.getTeamName()) && teamNameDictionary.teamIds(condition.getTeamName()) == null;
+    }
+
+    /**
+     * 값이 없는 조건은 null이며 where()가 무시한다
+     *
+     * @param condition
+     * @return
+     */
+    Predicate[] where(MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername())
+                , usernameIgnoreCaseEq(condition.getUsernameIgnoreCase())
+                , usernameStartsWith(condition.getUsernameStartsWith())
+                , usernameContains(condition.getUsernameContains())
+                , teamNameEq(condition.getTeamName())
+                , ageGoe(condition.getAgeGoe())
+                , ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression usernameIgnoreCaseEq(String username) {
+        return StringUtils.hasText(username) ? member.usernameNormalized.eq(Member.normalizeUsername(username)) : null;
+    }
+
+    /**
+     * LIKE 'x%'로 바뀌므로 username_normalized 인덱스 범위 검색이 된다
+     *
+     * @param prefix
+     * @return
+     */
+    private BooleanExpression usernameStartsWith(String prefix) {
+        return StringUtils.hasText(prefix) ? member.usernameNormalized.startsWith(Member.normalizeUsername(prefix)) : null;
+    }
+
+    /**
+     * 색인으로 후보를 얻으면 member_id IN (후보)로 좁힌 뒤 LIKE '%x%'로 확인한다 (후보가 비면 Querydsl이 1 = 2로 바꾼다)
+     * 색인의 마지막 스캔 이후 생긴 회원(member_id > maxIndexedId)은 색인에 없을 수 있으므로 후보에 더해 확인한다
+     * 3글자보다 짧거나 후보가 너무 많으면 LIKE만 쓴다
+     *
+     * @param fragment
+     * @return
+     */
+    private BooleanExpression usernameContains(String fragment) {
+        if (!StringUtils.hasText(fragment)) {
+            return null;
+        }
+
+        String normalized = Member.normalizeUsername(fragment);
+        UsernameCandidates candidates = usernameTrigramIndex.candidates(normalized);
+        BooleanExpression contains = member.usernameNormalized.contains(normalized);
+
+        if (candidates == null) {
+            return contains;
+        }
+
+        return member.memberId.in(candidates.getMemberIds())
+                .or(member.memberId.gt(candidates.getMaxIndexedId()))
+                .and(contains);
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        if (!StringUtils.hasText(teamName)) {
+            return null;
+        }
+
+        Set<Long> teamIds = teamNameDictionary.teamIds(teamName);
+
+        return teamIds == null ? team.name.eq(teamName) : member.teamId.in(teamIds);
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.tistory.jaimemin.querydsl.repository;
+
+import com.querydsl.core.types.dsl.Wildcard;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.StatementOptions;
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import com.tistory.jaimemin.querydsl.dto.QMemberTeamDto;
+import com.tistory.jaimemin.querydsl.repository.support.QueryDeadline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.tistory.jaimemin.querydsl.repository.sql.SMember.member;
+import static com.tistory.jaimemin.querydsl.repository.sql.STeam.team;
+
+/**
+ * MemberRepositoryImpl.search, searchPageComplex와 같은 결과를 querydsl-sql로 조회한다
+ * JPQL 직렬화, HQL 변환, 엔티티 결과 처리 없이 ResultSet을 MemberTeamDto로 바로 매핑한다
+ * 영속성 컨텍스트를 flush하지 않으므로 같은 트랜잭션에서 아직 flush되지 않은 변경은 보이지 않는다
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberSqlRepository {
+
+    private final SQLQueryFactory sqlQueryFactory;
+
+    private final MemberSqlConditions memberSqlConditions;
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (memberSqlConditions.isUnknownTeam(condition)) {
+            return Collections.emptyList();
+        }
+
+        return withDeadline(contentQuery(condition)).fetch();
+    }
+
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        if (memberSqlConditions.isUnknownTeam(condition)) {
+            return Page.empty(pageable);
+        }
+
+        List<MemberTeamDto> content = withDeadline(contentQuery(condition)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()))
+                .fetch();
+
+        SQLQuery<Long> countQuery = sqlQueryFactory
+                .select(Wildcard.count)
+                .from(member);
+
+        if (memberSqlConditions.requiresTeamJoin(condition)) {
+            countQuery.leftJoin(team).on(member.teamId.eq(team.teamId));
+        }
+
+        countQuery.where(memberSqlConditions.where(condition));
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> fetchCount(countQuery, content, pageable));
+    }
+
+    private SQLQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return sqlQueryFactory
+                .select(new QMemberTeamDto(
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.teamId,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(memberSqlConditions.where(condition));
+    }
+
+    private long fetchCount(SQLQuery<Long> countQuery, List<?> content, Pageable pageable) {
+        try {
+            Long count = withDeadline(countQuery).fetchOne();
+
+            return count == null ? 0L : count;
+        } catch (QueryTimeoutException e) {
+            throw new CountDeadlineExceededException(content, pageable, e);
+        }
+    }
+
+    /**
+     * 요청 deadline의 남은 시간을 JDBC statement timeout(초 단위, 올림)으로 건다
+     *
+     * @param query
+     * @param <Q>
+     * @return
+     */
+    private <Q extends SQLQuery<?>> Q withDeadline(Q query) {
+        Long remaining = QueryDeadline.remainingMillis();
+
+        if (remaining == null) {
+            return query;
+        }
+
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("query deadline exceeded");
+        }
+
+        query.setStatementOptions(StatementOptions.builder()
+                .setQueryTimeout(QueryDeadline.timeoutSeconds(remaining))
+                .build());
+
+        return query;
+    }
+}
@@ -6,6 +6,7 @@ import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
 import com.tistory.jaimemin.querydsl.entity.Member;
 import com.tistory.jaimemin.querydsl.entity.QMember;
 import com.tistory.jaimemin.querydsl.entity.QTeam;
+import com.tistory.jaimemin.querydsl.repository.support.CountQueryOptimizer;
 import com.tistory.jaimemin.querydsl.repository.support.Querydsl4RepositorySupport;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.function.LongSupplier;
 
 import static com.tistory.jaimemin.querydsl.entity.QMember.*;
 import static com.tistory.jaimemin.querydsl.entity.QTeam.team;
@@ -46,10 +48,11 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                         , ageLoe(condition.getAgeLoe())
                 );
 
+        LongSupplier total = CountQueryOptimizer.countOf(getQueryFactory(), query);
         List<Member> content = getQuerydsl().applyPagination(pageable, query)
                 .fetch();
 
-        return PageableExecutionUtils.getPage(content, pageable, query::fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, total);
     }
 
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
@@ -76,8 +79,9 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                                 , ageLoe(condition.getAgeLoe())
                         ), countQuery ->
                 countQuery
-                        .select(member.id)
+                        .select(member.count())
                         .from(member)
+                        .leftJoin(member.team, team)
                         .where(
                                 usernameEq(condition.getUsername())
                                 , teamNameEq(condition.getTeamName())
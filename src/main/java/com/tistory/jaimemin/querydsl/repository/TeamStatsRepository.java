@@ -0,0 +1,142 @@
+package com.tistory.jaimemin.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.tistory.jaimemin.querydsl.dto.TeamStatsCheckDto;
+import com.tistory.jaimemin.querydsl.dto.TeamStatsDto;
+import com.tistory.jaimemin.querydsl.entity.TeamStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static com.tistory.jaimemin.querydsl.entity.QMember.member;
+import static com.tistory.jaimemin.querydsl.entity.QTeam.team;
+import static com.tistory.jaimemin.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * TeamStatsMaintainer가 갱신하는 team_stats 조회
+ */
+@Repository
+@RequiredArgsConstructor
+public class TeamStatsRepository {
+
+    private static final String LOCK_STALE_SQL = "SELECT team_id FROM team_stats WHERE min_max_stale = TRUE FOR UPDATE";
+
+    private static final String RECOMPUTE_MIN_MAX_SQL = "UPDATE team_stats s SET"
+            + " min_age = (SELECT MIN(m.age) FROM member m WHERE m.team_id = s.team_id),"
+            + " max_age = (SELECT MAX(m.age) FROM member m WHERE m.team_id = s.team_id),"
+            + " min_max_stale = FALSE"
+            + " WHERE s.team_id = ?";
+
+    private final JPAQueryFactory queryFactory;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 최솟값/최댓값이 stale인 행은 잠그고 다시 계산한 뒤 읽는다
+     * 행을 먼저 잠그므로 계산 도중 커밋되는 회원 변경은 이 트랜잭션이 끝난 뒤 반영되어 다시 stale로 표시된다
+     *
+     * @return
+     */
+    @Transactional
+    public List<TeamStatsDto> findAll() {
+        for (Long teamId : jdbcTemplate.queryForList(LOCK_STALE_SQL, Long.class)) {
+            jdbcTemplate.update(RECOMPUTE_MIN_MAX_SQL, teamId);
+        }
+
+        return stored().values().stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * team_stats와 member group by 집계를 비교한다
+     * 최솟값/최댓값은 stale이 아닌 행만 비교한다 (stale은 조회할 때 다시 계산되므로 불일치가 아니다)
+     *
+     * @return
+     */
+    @Transactional(readOnly = true)
+    public TeamStatsCheckDto check() {
+        Map<Long, Tuple> stored = stored();
+        Map<Long, TeamStatsDto> live = live();
+        List<TeamStatsCheckDto.Mismatch> mismatches = new ArrayList<>();
+        TreeSet<Long> teamIds = new TreeSet<>(stored.keySet());
+        teamIds.addAll(live.keySet());
+
+        for (Long teamId : teamIds) {
+            Tuple row = stored.get(teamId);
+            TeamStatsDto storedDto = row == null ? null : toDto(row);
+            TeamStatsDto liveDto = live.get(teamId);
+            boolean checkMinMax = row != null && !row.get(teamStats).isMinMaxStale();
+
+            if (!matches(storedDto, liveDto, checkMinMax)) {
+                mismatches.add(new TeamStatsCheckDto.Mismatch(teamId, storedDto, liveDto));
+            }
+        }
+
+        return new TeamStatsCheckDto(teamIds.size(), mismatches);
+    }
+
+    private Map<Long, Tuple> stored() {
+        Map<Long, Tuple> rows = new LinkedHashMap<>();
+
+        for (Tuple tuple : queryFactory
+                .select(teamStats, team.name)
+                .from(teamStats)
+                .leftJoin(team).on(team.id.eq(teamStats.teamId))
+                .orderBy(teamStats.teamId.asc())
+                .fetch()) {
+            rows.put(tuple.get(teamStats).getTeamId(), tuple);
+        }
+
+        return rows;
+    }
+
+    private Map<Long, TeamStatsDto> live() {
+        NumberExpression<Integer> ageSum = member.age.sum();
+        Map<Long, TeamStatsDto> rows = new LinkedHashMap<>();
+
+        for (Tuple tuple : queryFactory
+                .select(team.id, team.name, member.count(), ageSum, member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name)
+                .fetch()) {
+            Number sum = tuple.get(ageSum);
+
+            rows.put(tuple.get(team.id), new TeamStatsDto(tuple.get(team.id), tuple.get(team.name),
+                    tuple.get(member.count()), sum == null ? 0L : sum.longValue(),
+                    tuple.get(member.age.min()), tuple.get(member.age.max())));
+        }
+
+        return rows;
+    }
+
+    private TeamStatsDto toDto(Tuple tuple) {
+        TeamStats stats = tuple.get(teamStats);
+
+        return new TeamStatsDto(stats.getTeamId(), tuple.get(team.name), stats.getMemberCount(), stats.getAgeSum(),
+                stats.getMinAge(), stats.getMaxAge());
+    }
+
+    private boolean matches(TeamStatsDto stored, TeamStatsDto live, boolean checkMinMax) {
+        if (stored == null || live == null) {
+            return false;
+        }
+
+        return stored.getMemberCount() == live.getMemberCount()
+                && stored.getAgeSum() == live.getAgeSum()
+                && (!checkMinMax || (Objects.equals(stored.getMinAge(), live.getMinAge())
+                && Objects.equals(stored.getMaxAge(), live.getMaxAge())));
+    }
+}
@@ -0,0 +1,258 @@
+package com.tistory.jaimemin.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Wildcard;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * 본문 쿼리에서 최소한의 count 쿼리를 만든다
+ * - select는 COUNT(*)로 바꾸고 ORDER BY, offset/limit은 버린다
+ * - fetch join은 일반 join으로 바꾼다
+ * - where/on 어디에서도 참조하지 않는 to-one left join은 행 수를 바꾸지 않으므로 뺀다
+ * group by나 distinct가 있으면 JPQL로 줄일 수 없어 기존 fetchCount로 센다
+ */
+public final class CountQueryOptimizer {
+
+    private CountQueryOptimizer() {
+    }
+
+    public static boolean isDerivable(JPAQuery<?> contentQuery) {
+        QueryMetadata metadata = contentQuery.getMetadata();
+
+        return metadata.getGroupBy().isEmpty()
+                && metadata.getHaving() == null
+                && !metadata.isDistinct();
+    }
+
+    /**
+     * 페이지 total을 구하는 supplier. 본문 쿼리를 실행하기 전에(정렬, 페이지 적용 전) 호출해야 한다
+     *
+     * @param queryFactory
+     * @param contentQuery
+     * @return
+     */
+    @SuppressWarnings("deprecation")
+    public static LongSupplier countOf(JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+        if (!isDerivable(contentQuery)) {
+            JPAQuery<?> fallback = contentQuery.clone();
+
+            return fallback::fetchCount;
+        }
+
+        JPAQuery<Long> countQuery = derive(queryFactory, contentQuery);
+
+        return () -> {
+            Long count = countQuery.fetchOne();
+
+            return count == null ? 0L : count;
+        };
+    }
+
+    /**
+     * @param queryFactory count 쿼리를 만들 팩토리 (deadline 등 팩토리 설정을 그대로 따른다)
+     * @param contentQuery
+     * @return
+     * @throws IllegalArgumentException group by, having, distinct가 있는 경우
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static JPAQuery<Long> derive(JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+        if (!isDerivable(contentQuery)) {
+            throw new IllegalArgumentException("count query cannot be derived from group by/distinct query");
+        }
+
+        QueryMetadata source = contentQuery.getMetadata();
+        JPAQuery<Long> countQuery = queryFactory.select(Wildcard.count);
+        QueryMetadata target = countQuery.getMetadata();
+
+        for (JoinExpression join : requiredJoins(source)) {
+            target.addJoin(join.getType(), join.getTarget());
+
+            if (join.getCondition() != null) {
+                target.addJoinCondition(join.getCondition());
+            }
+
+            for (JoinFlag flag : join.getFlags()) {
+                if (!JPAQueryMixin.FETCH.equals(flag) && !JPAQueryMixin.FETCH_ALL_PROPERTIES.equals(flag)) {
+                    target.addJoinFlag(flag);
+                }
+            }
+        }
+
+        if (source.getWhere() != null) {
+            target.addWhere(source.getWhere());
+        }
+
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            target.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+
+        return countQuery;
+    }
+
+    /**
+     * 뒤쪽 join부터 보면서 where와 남는 join에서 참조하지 않는 to-one left join을 뺀다
+     *
+     * @param metadata
+     * @return
+     */
+    private static List<JoinExpression> requiredJoins(QueryMetadata metadata) {
+        Set<Path<?>> referenced = new HashSet<>();
+
+        if (metadata.getWhere() != null) {
+            metadata.getWhere().accept(PathCollector.INSTANCE, referenced);
+        }
+
+        List<JoinExpression> joins = metadata.getJoins();
+        List<JoinExpression> required = new ArrayList<>(joins.size());
+
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+
+            if (isRemovable(join, referenced)) {
+                continue;
+            }
+
+            required.add(join);
+            join.getTarget().accept(PathCollector.INSTANCE, referenced);
+
+            if (join.getCondition() != null) {
+                join.getCondition().accept(PathCollector.INSTANCE, referenced);
+            }
+        }
+
+        Collections.reverse(required);
+
+        return required;
+    }
+
+    private static boolean isRemovable(JoinExpression join, Set<Path<?>> referenced) {
+        if (join.getType() != JoinType.LEFTJOIN) {
+            return false;
+        }
+
+        Expression<?> target = join.getTarget();
+        Expression<?> association = target;
+        Expression<?> alias = target;
+
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            association = ((Operation<?>) target).getArg(0);
+            alias = ((Operation<?>) target).getArg(1);
+        }
+
+        // 연관관계 경로가 아닌 엔티티 join(leftJoin(team).on(...))은 행이 늘어날 수 있다
+        boolean toOne = association instanceof Path
+                && ((Path<?>) association).getMetadata().getParent() != null
+                && !(association instanceof CollectionExpression)
+                && !(association instanceof MapExpression);
+
+        return toOne && !referenced.contains(alias);
+    }
+
+    /**
+     * 식에 등장하는 경로와 그 상위 경로(루트 alias 포함)를 모은다
+     */
+    private static final class PathCollector implements Visitor<Void, Set<Path<?>>> {
+
+        private static final PathCollector INSTANCE = new PathCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> context) {
+            for (Expression<?> arg : expr.getArgs()) {
+                arg.accept(this, context);
+            }
+
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> context) {
+            for (Expression<?> arg : expr.getArgs()) {
+                arg.accept(this, context);
+            }
+
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> context) {
+            for (Path<?> path = expr; path != null; path = path.getMetadata().getParent()) {
+                context.add(path);
+            }
+
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> context) {
+            QueryMetadata metadata = expr.getMetadata();
+
+            for (JoinExpression join : metadata.getJoins()) {
+                join.getTarget().accept(this, context);
+
+                if (join.getCondition() != null) {
+                    join.getCondition().accept(this, context);
+                }
+            }
+
+            if (metadata.getWhere() != null) {
+                metadata.getWhere().accept(this, context);
+            }
+
+            if (metadata.getHaving() != null) {
+                metadata.getHaving().accept(this, context);
+            }
+
+            if (metadata.getProjection() != null) {
+                metadata.getProjection().accept(this, context);
+            }
+
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> context) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, context);
+                }
+            }
+
+            return null;
+        }
+    }
+}
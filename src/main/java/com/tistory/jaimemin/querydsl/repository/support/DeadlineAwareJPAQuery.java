@@ -0,0 +1,42 @@
+package com.tistory.jaimemin.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/**
+ * 실행 시점(fetch, fetchOne, fetchCount)에 남은 deadline을 timeout 힌트로 건다
+ *
+ * @param <T>
+ */
+public class DeadlineAwareJPAQuery<T> extends JPAQuery<T> {
+
+    public DeadlineAwareJPAQuery(EntityManager entityManager) {
+        super(entityManager);
+    }
+
+    public DeadlineAwareJPAQuery(EntityManager entityManager, QueryMetadata metadata) {
+        super(entityManager, metadata);
+    }
+
+    public DeadlineAwareJPAQuery(EntityManager entityManager, JPQLTemplates templates, QueryMetadata metadata) {
+        super(entityManager, templates, metadata);
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        return QueryDeadline.apply(super.createQuery(modifiers, forCount));
+    }
+
+    @Override
+    public DeadlineAwareJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        DeadlineAwareJPAQuery<T> query = new DeadlineAwareJPAQuery<>(entityManager, templates, getMetadata().clone());
+        query.clone(this);
+
+        return query;
+    }
+}
@@ -0,0 +1,24 @@
+package com.tistory.jaimemin.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+/**
+ * select, selectFrom 등으로 만드는 모든 쿼리를 DeadlineAwareJPAQuery로 만든다
+ */
+public class DeadlineAwareJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+
+    public DeadlineAwareJPAQueryFactory(EntityManager entityManager) {
+        super(entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public JPAQuery<Void> query() {
+        return new DeadlineAwareJPAQuery<>(entityManager);
+    }
+}
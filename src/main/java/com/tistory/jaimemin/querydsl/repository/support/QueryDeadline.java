@@ -0,0 +1,103 @@
+package com.tistory.jaimemin.querydsl.repository.support;
+
+import javax.persistence.Query;
+import javax.persistence.QueryTimeoutException;
+import java.util.concurrent.Callable;
+
+/**
+ * 요청 단위 쿼리 deadline
+ * 쿼리마다 남은 시간을 org.hibernate.timeout 힌트(초)로 넘겨 JDBC statement timeout이 되게 한다
+ * javax.persistence.query.timeout(밀리초)은 Hibernate 5.6이 초로 반올림하므로 500ms 미만이 0(제한 없음)이 되어 쓰지 않는다
+ */
+public final class QueryDeadline {
+
+    public static final String TIMEOUT_HINT = "org.hibernate.timeout";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    public static void start(long timeoutMillis) {
+        DEADLINE.set(System.currentTimeMillis() + timeoutMillis);
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * deadline이 없으면 null
+     *
+     * @return
+     */
+    public static Long remainingMillis() {
+        Long deadline = DEADLINE.get();
+
+        return deadline == null ? null : deadline - System.currentTimeMillis();
+    }
+
+    /**
+     * 이미 deadline이 지났으면 DB에 보내지 않고 바로 QueryTimeoutException을 던진다
+     *
+     * @param query
+     * @param <Q>
+     * @return
+     */
+    public static <Q extends Query> Q apply(Q query) {
+        Long remaining = remainingMillis();
+
+        if (remaining == null) {
+            return query;
+        }
+
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("query deadline exceeded", null, query);
+        }
+
+        query.setHint(TIMEOUT_HINT, timeoutSeconds(remaining));
+
+        return query;
+    }
+
+    /**
+     * JDBC statement timeout은 초 단위이므로 올림한다. 0은 제한 없음이라 최소 1초
+     *
+     * @param remainingMillis
+     * @return
+     */
+    public static int timeoutSeconds(long remainingMillis) {
+        return (int) Math.max(1, (remainingMillis + 999) / 1000);
+    }
+
+    /**
+     * 다른 스레드에서 실행할 작업에 현재 deadline을 넘긴다
+     *
+     * @param task
+     * @param <T>
+     * @return
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Long deadline = DEADLINE.get();
+
+        return () -> {
+            Long previous = DEADLINE.get();
+
+            if (deadline == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(deadline);
+            }
+
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    DEADLINE.remove();
+                } else {
+                    DEADLINE.set(previous);
+                }
+            }
+        };
+    }
+}
@@ -14,22 +14,28 @@ import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
  *
+ * 조회용이므로 기본으로 read-only 트랜잭션에서 실행한다 (세션이 read-only, flush mode MANUAL이 되어 dirty checking 스냅샷을 만들지 않는다)
+ * 읽어 온 엔티티를 수정해야 하는 하위 클래스나 메서드는 @Transactional로 다시 선언한다
+ *
  * @author Younghan Kim
  * @see
 org.springframework.data.jpa.repository.support.QuerydslRepositorySupport
  */
 @Repository
+@Transactional(readOnly = true)
 public class Querydsl4RepositorySupport {
 
     private final Class domainClass;
@@ -55,7 +61,7 @@ public class Querydsl4RepositorySupport {
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new
                 PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.queryFactory = new DeadlineAwareJPAQueryFactory(entityManager);
     }
 
     @PostConstruct
@@ -85,25 +91,45 @@ public class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    /**
+     * count 쿼리는 본문 쿼리에서 CountQueryOptimizer로 만든다
+     *
+     * @param pageable
+     * @param contentQuery
+     * @param <T>
+     * @return
+     */
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        LongSupplier total = CountQueryOptimizer.countOf(getQueryFactory(), jpaQuery);
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaQuery).fetch();
 
-        return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, total);
     }
 
+    /**
+     * 호출자가 넘긴 count 쿼리는 고치지 않고 그대로 실행한다. count를 select해야 한다 (예: select(member.count()))
+     *
+     * @param pageable
+     * @param contentQuery
+     * @param countQuery
+     * @param <T>
+     * @return
+     */
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery,
-                                          Function<JPAQueryFactory, JPAQuery> countQuery) {
+                                          Function<JPAQueryFactory, JPAQuery<Long>> countQuery) {
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        JPAQuery<Long> countResult = countQuery.apply(getQueryFactory());
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            Long total = countResult.fetchOne();
 
-        return PageableExecutionUtils.getPage(content, pageable,
-                countResult::fetchCount);
+            return total == null ? 0L : total;
+        });
     }
 }
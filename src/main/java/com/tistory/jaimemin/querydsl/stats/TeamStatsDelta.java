@@ -0,0 +1,91 @@
+package com.tistory.jaimemin.querydsl.stats;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 한 트랜잭션에서 flush된 회원 변경을 팀별로 합친 것. 커밋 직전에 team_stats에 한 번에 반영한다
+ */
+@Getter
+final class TeamStatsDelta {
+
+    private final Map<Long, Change> changes = new LinkedHashMap<>();
+
+    private final Set<Long> createdTeams = new LinkedHashSet<>();
+
+    private final Set<Long> deletedTeams = new LinkedHashSet<>();
+
+    // 변경 전 상태를 모르는 UPDATE가 있으면 팀별로 나눌 수 없어 전체를 다시 계산한다
+    private boolean rebuildRequired;
+
+    void add(Long teamId, int age) {
+        if (teamId != null) {
+            changes.computeIfAbsent(teamId, id -> new Change()).add(age);
+        }
+    }
+
+    void remove(Long teamId, int age) {
+        if (teamId != null) {
+            changes.computeIfAbsent(teamId, id -> new Change()).remove(age);
+        }
+    }
+
+    void teamCreated(Long teamId) {
+        createdTeams.add(teamId);
+    }
+
+    void teamDeleted(Long teamId) {
+        deletedTeams.add(teamId);
+    }
+
+    void requireRebuild() {
+        rebuildRequired = true;
+    }
+
+    void clear() {
+        changes.clear();
+        createdTeams.clear();
+        deletedTeams.clear();
+        rebuildRequired = false;
+    }
+
+    boolean isEmpty() {
+        return changes.isEmpty() && createdTeams.isEmpty() && deletedTeams.isEmpty() && !rebuildRequired;
+    }
+
+    @Getter
+    static final class Change {
+
+        private long count;
+
+        private long ageSum;
+
+        // 추가된 나이의 범위. 기존 최솟값/최댓값을 넓히는 데 쓴다
+        private Integer addedMin;
+
+        private Integer addedMax;
+
+        // 빠진 나이의 범위. 기존 최솟값/최댓값과 같거나 바깥이면 다시 계산해야 한다
+        private Integer removedMin;
+
+        private Integer removedMax;
+
+        private void add(int age) {
+            count++;
+            ageSum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        private void remove(int age) {
+            count--;
+            ageSum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.tistory.jaimemin.querydsl.stats;
+
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.Team;
+import com.tistory.jaimemin.querydsl.event.EntityChangeEvent;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * team_stats를 회원 변경과 같은 트랜잭션에서 갱신한다
+ * flush될 때 Hibernate post insert/update/delete 이벤트로 팀별 변화량을 모으고, 커밋 직전(before transaction completion)에 SQL로 반영한다
+ * 롤백되면 반영하지 않으므로 team_stats는 커밋된 회원과 항상 같다 (최솟값/최댓값은 stale 표시 후 읽을 때 다시 계산)
+ * bulk 연산은 이벤트가 없으므로 호출하는 쪽이 같은 트랜잭션에서 rebuild()를 부른다
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamStatsMaintainer implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String INSERT_FROM_MEMBERS_SQL = "INSERT INTO team_stats"
+            + " (team_id, member_count, age_sum, min_age, max_age, min_max_stale)"
+            + " SELECT ?, COUNT(*), COALESCE(SUM(age), 0), MIN(age), MAX(age), FALSE FROM member WHERE team_id = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM team_stats WHERE team_id = ?";
+
+    private static final String[] REBUILD_SQL = {
+            "DELETE FROM team_stats WHERE team_id NOT IN (SELECT team_id FROM team)",
+            "INSERT INTO team_stats (team_id, member_count, age_sum, min_age, max_age, min_max_stale)"
+                    + " SELECT t.team_id, 0, 0, NULL, NULL, FALSE FROM team t"
+                    + " WHERE NOT EXISTS (SELECT 1 FROM team_stats s WHERE s.team_id = t.team_id)",
+            "UPDATE team_stats s SET"
+                    + " member_count = (SELECT COUNT(*) FROM member m WHERE m.team_id = s.team_id),"
+                    + " age_sum = (SELECT COALESCE(SUM(m.age), 0) FROM member m WHERE m.team_id = s.team_id),"
+                    + " min_age = (SELECT MIN(m.age) FROM member m WHERE m.team_id = s.team_id),"
+                    + " max_age = (SELECT MAX(m.age) FROM member m WHERE m.team_id = s.team_id),"
+                    + " min_max_stale = FALSE"
+    };
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final EntityManager entityManager;
+
+    private final Map<SessionImplementor, TeamStatsDelta> pending = new ConcurrentHashMap<>();
+
+    private SessionFactoryImplementor sessionFactory;
+
+    @PostConstruct
+    public void register() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * team_stats 전체를 member/team에서 다시 계산한다. 현재 트랜잭션에서 모아 둔 변화량은 버린다 (이미 반영된 상태를 읽으므로)
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        session.flush();
+
+        TeamStatsDelta delta = pending.get(session);
+
+        if (delta != null) {
+            delta.clear();
+        }
+
+        session.doWork(this::rebuildAll);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        EntityChangeEvent change = new EntityChangeEvent(EntityChangeEvent.Type.INSERT, event.getEntity(), event.getId()
+                , event.getPersister().getPropertyNames(), event.getState(), null, sessionFactory);
+
+        if (change.isFor(Member.class)) {
+            deltaOf(event.getSession()).add(teamIdOf(change, change.getCurrent("team")), (Integer) change.getCurrent("age"));
+        } else if (change.isFor(Team.class)) {
+            deltaOf(event.getSession()).teamCreated((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+
+        EntityChangeEvent change = new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, event.getEntity(), event.getId()
+                , event.getPersister().getPropertyNames(), event.getState(), event.getOldState(), sessionFactory);
+        TeamStatsDelta delta = deltaOf(event.getSession());
+
+        if (event.getOldState() == null) {
+            delta.requireRebuild();
+            return;
+        }
+
+        if (!change.isChanged("team") && !change.isChanged("age")) {
+            return;
+        }
+
+        delta.remove(teamIdOf(change, change.getPrevious("team")), (Integer) change.getPrevious("age"));
+        delta.add(teamIdOf(change, change.getCurrent("team")), (Integer) change.getCurrent("age"));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        EntityChangeEvent change = new EntityChangeEvent(EntityChangeEvent.Type.DELETE, event.getEntity(), event.getId()
+                , event.getPersister().getPropertyNames(), event.getDeletedState(), null, sessionFactory);
+
+        if (change.isFor(Member.class)) {
+            deltaOf(event.getSession()).remove(teamIdOf(change, change.getCurrent("team")), (Integer) change.getCurrent("age"));
+        } else if (change.isFor(Team.class)) {
+            deltaOf(event.getSession()).teamDeleted((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 세션마다 처음 변경이 들어올 때 커밋 직전 반영과 트랜잭션 종료 후 정리를 등록한다
+     *
+     * @param session
+     * @return
+     */
+    private TeamStatsDelta deltaOf(EventSource session) {
+        TeamStatsDelta delta = pending.get(session);
+
+        if (delta != null) {
+            return delta;
+        }
+
+        delta = new TeamStatsDelta();
+        pending.put(session, delta);
+
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> {
+            TeamStatsDelta collected = pending.remove(session);
+
+            if (collected != null && !collected.isEmpty()) {
+                completing.doWork(connection -> apply(connection, collected));
+            }
+        });
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) ->
+                pending.remove(session));
+
+        return delta;
+    }
+
+    private Long teamIdOf(EntityChangeEvent change, Object team) {
+        return (Long) change.referenceId(team);
+    }
+
+    private void apply(Connection connection, TeamStatsDelta delta) throws SQLException {
+        if (delta.isRebuildRequired()) {
+            rebuildAll(connection);
+            return;
+        }
+
+        // 새 팀은 이미 flush된 회원까지 포함해 집계로 만들므로 변화량을 따로 더하지 않는다
+        for (Long teamId : delta.getCreatedTeams()) {
+            if (!delta.getDeletedTeams().contains(teamId)) {
+                insertFromMembers(connection, teamId);
+            }
+        }
+
+        for (Map.Entry<Long, TeamStatsDelta.Change> entry : delta.getChanges().entrySet()) {
+            Long teamId = entry.getKey();
+
+            if (delta.getCreatedTeams().contains(teamId) || delta.getDeletedTeams().contains(teamId)) {
+                continue;
+            }
+
+            if (update(connection, teamId, entry.getValue()) == 0) {
+                // 행이 없으면(기능 추가 이전 팀 등) 현재 회원으로 만든다
+                insertFromMembers(connection, teamId);
+            }
+        }
+
+        for (Long teamId : delta.getDeletedTeams()) {
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+                statement.setLong(1, teamId);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private int update(Connection connection, Long teamId, TeamStatsDelta.Change change) throws SQLException {
+        StringBuilder sql = new StringBuilder("UPDATE team_stats SET member_count = member_count + ?, age_sum = age_sum + ?");
+
+        if (change.getAddedMin() != null) {
+            sql.append(", min_age = LEAST(COALESCE(min_age, ?), ?), max_age = GREATEST(COALESCE(max_age, ?), ?)");
+        }
+
+        if (change.getRemovedMin() != null) {
+            // SET의 오른쪽은 갱신 전 값을 보므로 기존 최솟값/최댓값과 비교된다
+            sql.append(", min_max_stale = min_max_stale OR COALESCE(? <= min_age OR ? >= max_age, TRUE)");
+        }
+
+        sql.append(" WHERE team_id = ?");
+
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            statement.setLong(index++, change.getCount());
+            statement.setLong(index++, change.getAgeSum());
+
+            if (change.getAddedMin() != null) {
+                statement.setInt(index++, change.getAddedMin());
+                statement.setInt(index++, change.getAddedMin());
+                statement.setInt(index++, change.getAddedMax());
+                statement.setInt(index++, change.getAddedMax());
+            }
+
+            if (change.getRemovedMin() != null) {
+                statement.setInt(index++, change.getRemovedMin());
+                statement.setInt(index++, change.getRemovedMax());
+            }
+
+            statement.setLong(index, teamId);
+
+            return statement.executeUpdate();
+        }
+    }
+
+    private void insertFromMembers(Connection connection, Long teamId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_FROM_MEMBERS_SQL)) {
+            statement.setLong(1, teamId);
+            statement.setLong(2, teamId);
+            statement.executeUpdate();
+        }
+    }
+
+    private void rebuildAll(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : REBUILD_SQL) {
+                statement.executeUpdate(sql);
+            }
+        }
+    }
+}
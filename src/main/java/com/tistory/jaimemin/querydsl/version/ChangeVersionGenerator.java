@@ -0,0 +1,96 @@
+package com.tistory.jaimemin.querydsl.version;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * member, team, member_tombstone이 공유하는 단조 증가 변경 버전
+ * 처음 사용할 때 세 테이블의 최댓값에서 이어서 발급한다 (단일 인스턴스 기준)
+ * 버전은 커밋 전에 발급되므로, 트랜잭션이 끝날 때까지 진행 중으로 기록해 두고 committed()로 커밋이 끝난 구간만 알려준다
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeVersionGenerator {
+
+    private static final String MAX_VERSION_SQL = "SELECT GREATEST("
+            + "(SELECT COALESCE(MAX(change_version), 0) FROM member), "
+            + "(SELECT COALESCE(MAX(change_version), 0) FROM team), "
+            + "(SELECT COALESCE(MAX(change_version), 0) FROM member_tombstone))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // 아래 필드는 this로 동기화한다
+    private final NavigableSet<Long> inFlight = new TreeSet<>();
+
+    private long version = -1;
+
+    /**
+     * 트랜잭션 안에서 발급한 버전은 트랜잭션이 커밋 또는 롤백될 때까지 진행 중으로 남는다
+     *
+     * @return
+     */
+    public synchronized long next() {
+        seedIfNecessary();
+
+        long next = ++version;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlight.add(next);
+            versionsOfCurrentTransaction().add(next);
+        }
+
+        return next;
+    }
+
+    /**
+     * 이 버전 이하는 모두 커밋(또는 롤백)이 끝났다. 진행 중인 가장 작은 버전 - 1
+     * delta 동기화 응답의 version으로 쓰면 늦게 커밋되는 변경을 건너뛰지 않는다
+     *
+     * @return
+     */
+    public synchronized long committed() {
+        seedIfNecessary();
+
+        return inFlight.isEmpty() ? version : inFlight.first() - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> versionsOfCurrentTransaction() {
+        List<Long> versions = (List<Long>) TransactionSynchronizationManager.getResource(this);
+
+        if (versions != null) {
+            return versions;
+        }
+
+        List<Long> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ChangeVersionGenerator.this);
+                complete(created);
+            }
+        });
+
+        return created;
+    }
+
+    private synchronized void complete(List<Long> versions) {
+        inFlight.removeAll(versions);
+    }
+
+    private void seedIfNecessary() {
+        if (version < 0) {
+            Long max = jdbcTemplate.queryForObject(MAX_VERSION_SQL, Long.class);
+            version = max == null ? 0L : max;
+        }
+    }
+}
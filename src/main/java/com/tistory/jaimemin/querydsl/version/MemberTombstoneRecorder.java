@@ -0,0 +1,58 @@
+package com.tistory.jaimemin.querydsl.version;
+
+import com.tistory.jaimemin.querydsl.entity.MemberTombstone;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 삭제된 회원의 tombstone을 모아 두었다가 커밋 직전(beforeCommit)에 저장한다
+ * JPA 생명주기 콜백(PreRemove) 안에서는 EntityManager를 호출하지 않도록 버전만 정해 둔다
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberTombstoneRecorder {
+
+    private final ChangeVersionGenerator changeVersionGenerator;
+
+    private final EntityManager entityManager;
+
+    public void record(Long memberId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("member removal requires a transaction");
+        }
+
+        pending().add(new MemberTombstone(memberId, changeVersionGenerator.next()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MemberTombstone> pending() {
+        List<MemberTombstone> tombstones = (List<MemberTombstone>) TransactionSynchronizationManager.getResource(this);
+
+        if (tombstones != null) {
+            return tombstones;
+        }
+
+        List<MemberTombstone> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // 커밋할 때의 flush로 함께 저장된다
+                created.forEach(entityManager::persist);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MemberTombstoneRecorder.this);
+            }
+        });
+
+        return created;
+    }
+}
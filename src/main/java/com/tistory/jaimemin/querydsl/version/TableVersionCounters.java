@@ -0,0 +1,127 @@
+package com.tistory.jaimemin.querydsl.version;
+
+import com.tistory.jaimemin.querydsl.dictionary.TeamNameDictionary;
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.Team;
+import com.tistory.jaimemin.querydsl.event.EntityChangeEvent;
+import com.tistory.jaimemin.querydsl.event.EntityChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * member/team 테이블과 팀별 소속 회원의 버전 카운터
+ * 커밋된 변경과 bulk 연산마다 증가하며, 검색 조건과 묶어 ETag를 만든다
+ * 버전은 조회 전에 읽으므로 조회 도중 바뀐 데이터는 다음 요청에서 다른 ETag가 된다
+ * 카운터는 메모리에만 있어 재시작하거나 인스턴스가 다르면 0부터 다시 센다. 기동마다 만드는 epoch를 섞어 다른 데이터에 같은 ETag가 나가지 않게 한다
+ * 다른 인스턴스나 SQL로 커밋된 변경은 카운터에 잡히지 않으므로, 이 인스턴스만 member/team을 쓰는 경우(member.etag.single-writer=true)에만 사용한다
+ */
+@Component
+public class TableVersionCounters implements EntityChangeListener {
+
+    private final TeamNameDictionary teamNameDictionary;
+
+    private final boolean singleWriter;
+
+    private final String epoch = UUID.randomUUID().toString();
+
+    private final AtomicLong memberVersion = new AtomicLong();
+
+    private final AtomicLong teamVersion = new AtomicLong();
+
+    // 팀을 특정할 수 없는 bulk 연산은 모든 팀별 버전에 반영되도록 따로 센다
+    private final AtomicLong memberBulkVersion = new AtomicLong();
+
+    private final Map<Long, AtomicLong> teamMemberVersions = new ConcurrentHashMap<>();
+
+    public TableVersionCounters(TeamNameDictionary teamNameDictionary,
+                                @Value("${member.etag.single-writer:false}") boolean singleWriter) {
+        this.teamNameDictionary = teamNameDictionary;
+        this.singleWriter = singleWriter;
+    }
+
+    @Override
+    public void onChange(EntityChangeEvent event) {
+        if (event.isFor(Member.class)) {
+            memberVersion.incrementAndGet();
+            bumpTeamMembers(event.referenceId(event.getCurrent("team")));
+            bumpTeamMembers(event.referenceId(event.getPrevious("team")));
+        } else if (event.isFor(Team.class)) {
+            teamVersion.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onBulkChange(Class<?> entityType) {
+        if (Member.class.equals(entityType)) {
+            memberVersion.incrementAndGet();
+            memberBulkVersion.incrementAndGet();
+        } else if (Team.class.equals(entityType)) {
+            teamVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * 카운터가 모든 쓰기를 본다고 가정할 수 있을 때만 true. false면 ETag를 만들지 않고 항상 응답을 보낸다
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return singleWriter;
+    }
+
+    /**
+     * 검색 조건과 조회 시점의 버전으로 만든 strong ETag
+     * 팀명이 지정되면 해당 팀들의 버전만 보므로 다른 팀의 변경에는 304를 유지한다
+     *
+     * @param resource
+     * @param condition
+     * @param extra     pageable 등 응답에 영향을 주는 나머지 값
+     * @return
+     */
+    public String etag(String resource, MemberSearchCondition condition, Object... extra) {
+        StringBuilder source = new StringBuilder(epoch)
+                .append('|').append(resource)
+                .append('|').append(condition)
+                .append("|t").append(teamVersion.get());
+
+        for (Object part : extra) {
+            source.append('|').append(part);
+        }
+
+        // 팀명 조건이 없거나 사전을 아직 읽지 못했으면 null
+        Set<Long> teamIds = teamNameDictionary.teamIds(condition.getTeamName());
+
+        if (teamIds == null) {
+            source.append("|m").append(memberVersion.get());
+        } else {
+            source.append("|b").append(memberBulkVersion.get());
+
+            for (Long teamId : teamIds) {
+                source.append("|team").append(teamId).append('=').append(teamMemberVersion(teamId));
+            }
+        }
+
+        return "\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private long teamMemberVersion(Long teamId) {
+        AtomicLong version = teamMemberVersions.get(teamId);
+
+        return version == null ? 0L : version.get();
+    }
+
+    private void bumpTeamMembers(Object teamId) {
+        if (teamId != null) {
+            teamMemberVersions.computeIfAbsent((Long) teamId, id -> new AtomicLong()).incrementAndGet();
+        }
+    }
+}
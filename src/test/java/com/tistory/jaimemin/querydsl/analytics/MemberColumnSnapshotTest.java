@@ -0,0 +1,58 @@
+package com.tistory.jaimemin.querydsl.analytics;
+
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 사본은 커밋된 데이터만 읽으므로 롤백되는 @Transactional 테스트 대신 실제로 커밋하고 끝나면 지운다
+ */
+@SpringBootTest
+class MemberColumnSnapshotTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberColumnSnapshot memberColumnSnapshot;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("DELETE FROM member_tombstone");
+        jdbcTemplate.update("DELETE FROM member");
+        jdbcTemplate.update("DELETE FROM team_stats");
+        jdbcTemplate.update("DELETE FROM team");
+        memberColumnSnapshot.load();
+    }
+
+    @Test
+    public void loadKeepsMembersWithoutTeam() {
+        Long teamId = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            entityManager.persist(teamA);
+            entityManager.persist(new Member("member1", 10, teamA));
+            entityManager.persist(new Member("member2", 20));
+
+            return teamA.getId();
+        });
+
+        memberColumnSnapshot.load();
+
+        assertThat(memberColumnSnapshot.teamStats()).extracting("teamId").containsExactly(teamId);
+    }
+}
@@ -0,0 +1,73 @@
+package com.tistory.jaimemin.querydsl.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberColumnsTest {
+
+    @Test
+    public void teamStats() {
+        MemberColumns columns = new MemberColumns();
+        columns.put(1, 10, 100L);
+        columns.put(2, 20, 100L);
+        columns.put(3, 30, 200L);
+        columns.put(4, 40, 200L);
+        columns.put(5, 50, null);
+
+        List<TeamAgeStats> stats = columns.teamStats();
+
+        assertThat(stats).extracting("teamId").containsExactly(100L, 200L);
+        assertThat(stats).extracting("count").containsExactly(2L, 2L);
+        assertThat(stats).extracting("sum").containsExactly(30L, 70L);
+        assertThat(stats).extracting("avg").containsExactly(15.0, 35.0);
+        assertThat(stats).extracting("min").containsExactly(10, 30);
+        assertThat(stats).extracting("max").containsExactly(20, 40);
+    }
+
+    @Test
+    public void updateAndRemove() {
+        MemberColumns columns = new MemberColumns();
+        columns.put(1, 10, 100L);
+        columns.put(2, 20, 100L);
+        columns.put(3, 30, 200L);
+
+        // 팀 이동, 나이 변경, 중간 행 삭제
+        columns.put(1, 15, 200L);
+        columns.remove(2);
+        columns.remove(99);
+
+        assertThat(columns.size()).isEqualTo(2);
+        assertThat(columns.count(null, null, null)).isEqualTo(2);
+        assertThat(columns.count(Collections.singleton(100L), null, null)).isZero();
+        assertThat(columns.count(Collections.singleton(200L), 15, 15)).isEqualTo(1);
+        assertThat(columns.teamStats()).extracting("teamId").containsExactly(200L);
+    }
+
+    @Test
+    public void agePercentiles() {
+        MemberColumns columns = new MemberColumns();
+
+        for (int i = 1; i <= 100; i++) {
+            columns.put(i, i, i % 2 == 0 ? 100L : 200L);
+        }
+
+        double[] percentiles = {50, 90, 100};
+
+        assertThat(columns.agePercentiles(percentiles, null, null, null)).containsExactly(50, 90, 100);
+        assertThat(columns.agePercentiles(percentiles, Collections.singleton(100L), null, null)).containsExactly(50, 90, 100);
+        assertThat(columns.agePercentiles(percentiles, null, 91, null)).containsExactly(95, 99, 100);
+        assertThat(columns.agePercentiles(percentiles, Collections.singleton(300L), null, null)).isNull();
+
+        // 나이 범위가 행 수보다 넓으면 정렬로 구한다
+        MemberColumns sparse = new MemberColumns();
+        sparse.put(1, 1, null);
+        sparse.put(2, 1_000, null);
+        sparse.put(3, 1_000_000, null);
+
+        assertThat(sparse.agePercentiles(new double[]{50}, null, null, null)).containsExactly(1_000);
+    }
+}
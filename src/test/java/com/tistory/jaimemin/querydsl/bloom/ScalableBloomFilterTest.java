@@ -0,0 +1,50 @@
+package com.tistory.jaimemin.querydsl.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    public void noFalseNegatives() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("member" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+
+        // 초기 용량을 넘으면 층이 늘어난다
+        assertThat(filter.layerCount()).isGreaterThan(1);
+    }
+
+    @Test
+    public void falsePositiveRateStaysUnderTarget() {
+        double fpp = 0.01;
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, fpp);
+
+        for (int i = 0; i < 50_000; i++) {
+            filter.add("member" + i);
+        }
+
+        int trials = 100_000;
+        int falsePositives = 0;
+
+        for (int i = 0; i < trials; i++) {
+            if (filter.mightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+
+        double observed = (double) falsePositives / trials;
+        System.out.println("observed fpp = " + observed + ", expected fpp = " + filter.expectedFpp()
+                + ", layers = " + filter.layerCount() + ", bits = " + filter.bitSize());
+
+        assertThat(observed).isLessThan(fpp * 1.5);
+        assertThat(filter.expectedFpp()).isLessThanOrEqualTo(fpp);
+    }
+}
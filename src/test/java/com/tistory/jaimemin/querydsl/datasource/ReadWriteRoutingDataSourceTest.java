@@ -0,0 +1,94 @@
+package com.tistory.jaimemin.querydsl.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final DriverManagerDataSource primary = dataSource("routing-primary");
+
+    private final ReplicaDataSource replica = new ReplicaDataSource("replica0", dataSource("routing-replica0"));
+
+    private final ReadWriteRoutingDataSource routingDataSource =
+            new ReadWriteRoutingDataSource(primary, Collections.singletonList(replica), new RoutingDataSourceProperties());
+
+    @AfterEach
+    public void cleanUp() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        RequestContextHolder.resetRequestAttributes();
+        ReadYourWritesContext.clear();
+    }
+
+    @Test
+    public void copyWaitsForRoutedReplicaConnections() throws SQLException {
+        routingDataSource.afterPropertiesSet();
+        replica.markReplicated(System.currentTimeMillis());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        try (Connection connection = routingDataSource.getConnection()) {
+            assertThat(connection.getMetaData().getURL()).contains("routing-replica0");
+
+            // 사용 중이면 복사를 건너뛰고 계속 읽게 둔다
+            assertThat(replica.drain(50)).isFalse();
+            assertThat(replica.isReadable(System.currentTimeMillis(), 5_000, 0)).isTrue();
+        }
+
+        assertThat(replica.drain(50)).isTrue();
+
+        // 복사 중에는 primary로 간다
+        try (Connection connection = routingDataSource.getConnection()) {
+            assertThat(connection.getMetaData().getURL()).contains("routing-primary");
+        }
+
+        replica.markReplicated(System.currentTimeMillis());
+
+        try (Connection connection = routingDataSource.getConnection()) {
+            assertThat(connection.getMetaData().getURL()).contains("routing-replica0");
+        }
+    }
+
+    @Test
+    public void lastWriteAtTravelsInCookieWithoutSession() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+        ReadYourWritesContext.markWritten(1_000L, 5_000);
+
+        assertThat(request.getSession(false)).isNull();
+        assertThat(ReadYourWritesContext.lastWriteAt(2_000L, 5_000)).isEqualTo(1_000L);
+        assertThat(response.getCookie(ReadYourWritesContext.COOKIE_NAME).getValue()).isEqualTo("1000");
+
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setCookies(new Cookie(ReadYourWritesContext.COOKIE_NAME, "1000"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(next, new MockHttpServletResponse()));
+
+        assertThat(ReadYourWritesContext.lastWriteAt(2_000L, 5_000)).isEqualTo(1_000L);
+    }
+
+    @Test
+    public void threadLastWriteAtExpiresAfterMaxLag() {
+        ReadYourWritesContext.markWritten(1_000L, 5_000);
+
+        assertThat(ReadYourWritesContext.lastWriteAt(2_000L, 5_000)).isEqualTo(1_000L);
+        assertThat(ReadYourWritesContext.lastWriteAt(10_000L, 5_000)).isZero();
+        assertThat(ReadYourWritesContext.lastWriteAt(2_000L, 5_000)).isZero();
+    }
+
+    private static DriverManagerDataSource dataSource(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,42 @@
+package com.tistory.jaimemin.querydsl.dictionary;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 사전은 커밋된 상태만 쓰므로 롤백되는 @Transactional 테스트 대신 트랜잭션 밖에서 확인하고 끝나면 지운다
+ */
+@SpringBootTest
+class TeamNameDictionaryTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TeamNameDictionary teamNameDictionary;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("DELETE FROM team");
+    }
+
+    @Test
+    public void teamInsertedWithoutEventIsFound() {
+        // JPA를 거치지 않은 insert는 변경 이벤트가 없다 (다른 인스턴스, SQL 경로와 같다)
+        jdbcTemplate.update("INSERT INTO team (team_id, name) VALUES (?, ?)", 900001L, "sqlTeam");
+
+        assertThat(teamNameDictionary.teamIds("sqlTeam")).containsExactly(900001L);
+        assertThat(teamNameDictionary.isUnknown("sqlTeam")).isFalse();
+        assertThat(teamNameDictionary.teamName(900001L)).isEqualTo("sqlTeam");
+    }
+
+    @Test
+    public void missingTeamIsUnknown() {
+        assertThat(teamNameDictionary.isUnknown("noSuchTeam")).isTrue();
+    }
+}
@@ -0,0 +1,70 @@
+package com.tistory.jaimemin.querydsl.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JSON과 Smile의 직렬화 시간, payload 크기 비교
+ */
+class MemberTeamDtoSerializationTest {
+
+    static final int ITERATIONS = 2_000;
+
+    ObjectMapper jsonMapper = new ObjectMapper();
+
+    ObjectMapper smileMapper = new ObjectMapper(new SmileFactory()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES));
+
+    @Test
+    public void compareJsonAndSmile() throws Exception {
+        Page<MemberTeamDto> page = createPage(1_000);
+
+        byte[] json = jsonMapper.writeValueAsBytes(page);
+        byte[] smile = smileMapper.writeValueAsBytes(page);
+
+        long jsonNanos = measure(jsonMapper, page);
+        long smileNanos = measure(smileMapper, page);
+
+        System.out.println("json  bytes = " + json.length + ", avg ns = " + jsonNanos / ITERATIONS);
+        System.out.println("smile bytes = " + smile.length + ", avg ns = " + smileNanos / ITERATIONS);
+
+        assertThat(smile.length).isLessThan(json.length);
+        assertThat(smileMapper.readTree(smile)).isEqualTo(jsonMapper.readTree(json));
+    }
+
+    private long measure(ObjectMapper mapper, Page<MemberTeamDto> page) throws Exception {
+        // warm up
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValueAsBytes(page);
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValueAsBytes(page);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private Page<MemberTeamDto> createPage(int size) {
+        List<MemberTeamDto> content = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            long teamId = i % 2;
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+
+        return new PageImpl<>(content, PageRequest.of(0, size), size * 10L);
+    }
+}
@@ -1,6 +1,7 @@
 package com.tistory.jaimemin.querydsl.entity;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
@@ -45,4 +46,46 @@ class MemberTest {
 
         assertThat(members.size()).isEqualTo(4);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void changeTeam() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Member member = new Member("member1", 10, teamA);
+
+        member.changeTeam(teamA);
+        assertThat(teamA.getMembers()).containsExactly(member);
+
+        member.changeTeam(teamB);
+        assertThat(teamA.getMembers()).isEmpty();
+        assertThat(teamB.getMembers()).containsExactly(member);
+    }
+
+    @Test
+    public void changeTeamOfLoadedMember() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+        Member member = new Member("member1", 10, teamA);
+        entityManager.persist(member);
+        entityManager.flush();
+        entityManager.clear();
+
+        Member found = entityManager.find(Member.class, member.getId());
+        Team previousTeam = found.getTeam();
+        Team nextTeam = entityManager.getReference(Team.class, teamB.getId());
+        found.changeTeam(nextTeam);
+
+        // 팀을 옮기려고 이전/다음 팀을 읽어 오지 않는다
+        assertThat(Hibernate.isInitialized(previousTeam)).isFalse();
+        assertThat(Hibernate.isInitialized(nextTeam)).isFalse();
+
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(entityManager.find(Member.class, member.getId()).getTeam().getId()).isEqualTo(teamB.getId());
+        assertThat(entityManager.find(Team.class, teamA.getId()).getMembers()).isEmpty();
+        assertThat(entityManager.find(Team.class, teamB.getId()).getMembers()).extracting("id").containsExactly(member.getId());
+    }
+}
@@ -0,0 +1,50 @@
+package com.tistory.jaimemin.querydsl.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BackgroundReloadTest {
+
+    @Test
+    public void requestDuringRunTriggersOneMoreRun() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        AtomicInteger runs = new AtomicInteger();
+
+        BackgroundReload reload = new BackgroundReload("test", () -> {
+            if (runs.incrementAndGet() == 1) {
+                started.countDown();
+                await(release);
+            }
+
+            finished.countDown();
+        });
+
+        reload.request();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 실행 중의 요청은 바로 돌아오고, 여러 번 와도 한 번으로 합쳐진다
+        reload.run();
+        reload.request();
+        reload.request();
+        release.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
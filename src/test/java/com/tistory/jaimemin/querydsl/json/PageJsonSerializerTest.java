@@ -0,0 +1,94 @@
+package com.tistory.jaimemin.querydsl.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 기본 BeanSerializer 경로와 전용 serializer 경로의 출력 동일성, 요청당 할당량 비교
+ */
+class PageJsonSerializerTest {
+
+    static final int ITERATIONS = 1_000;
+
+    ObjectMapper defaultMapper = new ObjectMapper();
+
+    ObjectMapper leanMapper = new ObjectMapper().registerModule(new SimpleModule()
+            .addSerializer(new MemberTeamDtoJsonSerializer())
+            .addSerializer(new PageJsonSerializer()));
+
+    @Test
+    public void sameOutputAsDefault() throws Exception {
+        Page<MemberTeamDto> page = createPage(100, PageRequest.of(1, 100));
+        Page<MemberTeamDto> unpaged = new PageImpl<>(createPage(3, Pageable.unpaged()).getContent());
+
+        assertThat(leanMapper.readTree(leanMapper.writeValueAsBytes(page)))
+                .isEqualTo(defaultMapper.readTree(defaultMapper.writeValueAsBytes(page)));
+        assertThat(leanMapper.readTree(leanMapper.writeValueAsBytes(unpaged)))
+                .isEqualTo(defaultMapper.readTree(defaultMapper.writeValueAsBytes(unpaged)));
+    }
+
+    @Test
+    public void allocationPerRequest() throws Exception {
+        Page<MemberTeamDto> page = createPage(100, PageRequest.of(0, 100));
+
+        long defaultBytes = allocatedBytesPerRequest(defaultMapper, page);
+        long leanBytes = allocatedBytesPerRequest(leanMapper, page);
+
+        System.out.println("default allocated bytes/request = " + defaultBytes);
+        System.out.println("lean    allocated bytes/request = " + leanBytes);
+
+        assertThat(leanBytes).isLessThan(defaultBytes);
+    }
+
+    private long allocatedBytesPerRequest(ObjectMapper mapper, Page<MemberTeamDto> page) throws Exception {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        // warm up
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValue(discard, page);
+        }
+
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValue(discard, page);
+        }
+
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    private Page<MemberTeamDto> createPage(int size, Pageable pageable) {
+        List<MemberTeamDto> content = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            long teamId = i % 2;
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+
+        return new PageImpl<>(content, pageable, size * 10L);
+    }
+}
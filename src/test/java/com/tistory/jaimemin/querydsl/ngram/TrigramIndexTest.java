@@ -0,0 +1,104 @@
+package com.tistory.jaimemin.querydsl.ngram;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    @Test
+    public void candidatesContainEveryMatch() {
+        TrigramIndex index = new TrigramIndex();
+        List<String> usernames = new ArrayList<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            String username = "member" + i;
+            usernames.add(username);
+            index.add(i, username);
+        }
+
+        long[] candidates = index.candidates("r12");
+
+        for (int i = 0; i < usernames.size(); i++) {
+            if (usernames.get(i).contains("r12")) {
+                assertThat(candidates).contains(i);
+            }
+        }
+
+        assertThat(index.candidates("zzz")).isEmpty();
+        // 3글자보다 짧으면 색인으로 좁힐 수 없다
+        assertThat(index.candidates("me")).isNull();
+    }
+
+    @Test
+    public void removeAndReAdd() {
+        TrigramIndex index = new TrigramIndex();
+
+        // pending이 다시 압축되는 경우까지 포함한다
+        for (int i = 0; i < 200; i++) {
+            index.add(i, "member" + i);
+        }
+
+        index.remove(7, "member7");
+        index.add(7, "renamed7");
+
+        assertThat(index.candidates("member7")).containsExactly(70, 71, 72, 73, 74, 75, 76, 77, 78, 79);
+        assertThat(index.candidates("renamed")).containsExactly(7);
+        assertThat(index.candidates("mem")).hasSize(199);
+    }
+
+    @Test
+    public void removeThenAddOfAbsentId() {
+        // 스캔 뒤에 들어온 삭제 이벤트가 아직 색인되지 않은 id를 먼저 지우는 경우
+        PostingList postingList = new PostingList(new long[]{1, 2, 3});
+
+        postingList.remove(7);
+        postingList.add(7);
+
+        assertThat(postingList.toArray()).containsExactly(1, 2, 3, 7);
+
+        postingList.remove(2);
+        postingList.add(2);
+        postingList.add(2);
+
+        assertThat(postingList.toArray()).containsExactly(1, 2, 3, 7);
+
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "member1");
+        index.remove(2, "member2");
+        index.add(2, "member2");
+
+        assertThat(index.candidates("member")).containsExactly(1, 2);
+    }
+
+    @Test
+    public void builderMatchesIncrementalIndex() {
+        TrigramIndex incremental = new TrigramIndex();
+        TrigramIndex.Builder builder = new TrigramIndex.Builder();
+
+        for (int i = 1_000; i > 0; i--) {
+            incremental.add(i, "member" + i);
+            builder.add(i, "member" + i);
+        }
+
+        TrigramIndex built = builder.build();
+
+        for (String fragment : new String[]{"mem", "r99", "ber10", "999"}) {
+            assertThat(built.candidates(fragment)).containsExactly(incremental.candidates(fragment));
+        }
+    }
+
+    @Test
+    public void postingListRoundTrip() {
+        long[] ids = {1, 2, 130, 16_384, 1L << 40};
+
+        byte[] encoded = PostingList.encode(ids);
+
+        assertThat(PostingList.decode(encoded, ids.length)).containsExactly(ids);
+        // 작은 delta는 1바이트
+        assertThat(PostingList.encode(new long[]{1, 2, 3})).hasSize(3);
+    }
+}
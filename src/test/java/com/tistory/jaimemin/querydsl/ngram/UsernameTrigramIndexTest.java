@@ -0,0 +1,75 @@
+package com.tistory.jaimemin.querydsl.ngram;
+
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 색인 후보는 쓰기 트랜잭션 밖에서만 쓰이므로 롤백되는 @Transactional 테스트 대신 실제로 커밋하고 끝나면 지운다
+ */
+@SpringBootTest
+class UsernameTrigramIndexTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UsernameTrigramIndex usernameTrigramIndex;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("DELETE FROM member_tombstone");
+        jdbcTemplate.update("DELETE FROM member");
+        jdbcTemplate.update("DELETE FROM team_stats");
+        jdbcTemplate.update("DELETE FROM team");
+    }
+
+    @Test
+    public void searchFindsIndexedAndUnindexedMembers() {
+        Long[] ids = transactionTemplate.execute(status -> {
+            Member alpha = new Member("alphaMember", 10);
+            Member beta = new Member("MEMBERbeta", 20);
+            entityManager.persist(alpha);
+            entityManager.persist(beta);
+            entityManager.persist(new Member("other", 30));
+
+            return new Long[]{alpha.getId(), beta.getId()};
+        });
+        usernameTrigramIndex.load();
+
+        // 이벤트 없이 들어온 회원 (다른 인스턴스, SQL 경로와 같다)
+        jdbcTemplate.update("INSERT INTO member (member_id, username, username_normalized, age) VALUES (?, ?, ?, ?)",
+                900001L, "gammaMember", "gammamember", 40);
+
+        UsernameCandidates candidates = usernameTrigramIndex.candidates("member");
+
+        assertThat(candidates).isNotNull();
+        assertThat(candidates.getMemberIds()).contains(ids[0], ids[1]).doesNotContain(900001L);
+        assertThat(candidates.getMaxIndexedId()).isLessThan(900001L);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("member");
+
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("alphaMember", "MEMBERbeta", "gammaMember");
+    }
+}
@@ -0,0 +1,31 @@
+package com.tistory.jaimemin.querydsl.prefetch;
+
+import com.tistory.jaimemin.querydsl.datasource.ReadWriteRoutingDataSource;
+import com.tistory.jaimemin.querydsl.datasource.ReplicaDataSource;
+import com.tistory.jaimemin.querydsl.datasource.RoutingDataSourceProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberPagePrefetcherTest {
+
+    @Test
+    public void poolsBehindRoutingProxies() {
+        HikariDataSource primary = new HikariDataSource();
+        HikariDataSource replica = new HikariDataSource();
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary,
+                Collections.singletonList(new ReplicaDataSource("replica0", replica)), new RoutingDataSourceProperties());
+
+        // routing이 켜져 있으면 빈은 LazyConnectionDataSourceProxy다 (ReadWriteRoutingConfig)
+        // 생성자로 만들면 기본 커넥션 속성을 읽으려 커넥션을 얻으므로 setter로 감싼다
+        LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy();
+        lazyDataSource.setTargetDataSource(routingDataSource);
+
+        assertThat(MemberPagePrefetcher.hikariPools(lazyDataSource)).containsExactly(primary, replica);
+        assertThat(MemberPagePrefetcher.hikariPools(primary)).containsExactly(primary);
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -108,4 +109,30 @@ class MemberJpaRepositoryTest {
 
         assertThat(result).extracting("username").containsExactly("memberD");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findAllByIds() {
+        List<Long> ids = new ArrayList<>();
+
+        for (int i = 0; i < 300; i++) {
+            Member member = new Member("member" + i, i);
+            memberJpaRepository.save(member);
+            ids.add(member.getId());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        // 중복 id, 없는 id, 가장 큰 버킷(256)을 넘는 목록
+        List<Long> requested = new ArrayList<>(ids);
+        requested.add(ids.get(0));
+        requested.add(-1L);
+
+        List<Member> result = memberJpaRepository.findAllByIds(requested);
+
+        assertThat(result).extracting("id").containsExactlyInAnyOrderElementsOf(ids);
+
+        // 버킷 크기로 채우는 id가 결과를 늘리지 않는다
+        assertThat(memberJpaRepository.findAllByIds(ids.subList(0, 5))).hasSize(5);
+    }
+}
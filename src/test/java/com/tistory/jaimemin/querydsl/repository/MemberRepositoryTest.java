@@ -4,17 +4,26 @@ import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
 import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
 import com.tistory.jaimemin.querydsl.entity.Member;
 import com.tistory.jaimemin.querydsl.entity.Team;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @Transactional
 @SpringBootTest
@@ -91,4 +100,203 @@ class MemberRepositoryTest {
         assertThat(result.getSize()).isEqualTo(3);
         assertThat(result.getContent()).extracting("username").containsExactly("memberA", "memberB", "memberC");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchBatch() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("memberA", 10, teamA));
+        entityManager.persist(new Member("memberB", 20, teamA));
+        entityManager.persist(new Member("memberC", 30, teamB));
+        entityManager.persist(new Member("memberD", 40, teamB));
+
+        MemberSearchCondition byUsernameA = new MemberSearchCondition();
+        byUsernameA.setUsername("memberA");
+        MemberSearchCondition byUsernameD = new MemberSearchCondition();
+        byUsernameD.setUsername("memberD");
+        MemberSearchCondition byTeamB = new MemberSearchCondition();
+        byTeamB.setTeamName("teamB");
+        MemberSearchCondition byAgeRange = new MemberSearchCondition();
+        byAgeRange.setAgeGoe(15);
+        byAgeRange.setAgeLoe(35);
+        MemberSearchCondition byUnknownTeam = new MemberSearchCondition();
+        byUnknownTeam.setTeamName("teamZ");
+
+        List<MemberSearchCondition> conditions = Arrays.asList(
+                byUsernameA, byUsernameD, byTeamB, byAgeRange, byUnknownTeam, byUsernameA);
+
+        List<List<MemberTeamDto>> result = memberRepository.searchBatch(conditions);
+
+        assertThat(result).hasSize(conditions.size());
+
+        // 조건별 단건 검색과 같은 결과
+        for (int i = 0; i < conditions.size(); i++) {
+            assertThat(result.get(i)).extracting("username")
+                    .containsExactlyInAnyOrderElementsOf(memberRepository.search(conditions.get(i))
+                            .stream()
+                            .map(MemberTeamDto::getUsername)
+                            .collect(Collectors.toList()));
+        }
+
+        assertThat(result.get(3)).extracting("username").containsExactly("memberB", "memberC");
+        assertThat(result.get(4)).isEmpty();
+    }
+
+    @Test
+    public void findLeftMemberIdsSince() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        Member movedAway = new Member("member1", 10, teamA);
+        Member neverMatched = new Member("member2", 20, teamB);
+        Member agedOut = new Member("member3", 30, teamA);
+        entityManager.persist(movedAway);
+        entityManager.persist(neverMatched);
+        entityManager.persist(agedOut);
+        entityManager.flush();
+        entityManager.clear();
+
+        long since = entityManager.createQuery("SELECT MAX(m.changeVersion) FROM Member m", Long.class)
+                .getSingleResult();
+
+        entityManager.find(Member.class, movedAway.getId()).changeTeam(entityManager.find(Team.class, teamB.getId()));
+        entityManager.find(Member.class, neverMatched.getId()).setAge(25);
+        entityManager.find(Member.class, agedOut.getId()).setAge(50);
+        entityManager.flush();
+        entityManager.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeLoe(40);
+
+        assertThat(memberRepository.findLeftMemberIdsSince(condition, since))
+                .containsExactlyInAnyOrder(movedAway.getId(), agedOut.getId());
+        // 첫 동기화에는 벗어난 회원이 없다
+        assertThat(memberRepository.findLeftMemberIdsSince(condition, 0)).isEmpty();
+    }
+
+    @Test
+    public void searchUsernameIgnoreCaseAndPrefix() {
+        entityManager.persist(new Member("MemberA", 10));
+        entityManager.persist(new Member("memberB", 20));
+        entityManager.persist(new Member("other", 30));
+
+        MemberSearchCondition ignoreCase = new MemberSearchCondition();
+        ignoreCase.setUsernameIgnoreCase("MEMBERA");
+
+        MemberSearchCondition prefix = new MemberSearchCondition();
+        prefix.setUsernameStartsWith("MEM");
+
+        assertThat(memberRepository.search(ignoreCase)).extracting("username").containsExactly("MemberA");
+        assertThat(memberRepository.search(prefix)).extracting("username").containsExactlyInAnyOrder("MemberA", "memberB");
+    }
+
+    @Test
+    public void usernameNormalizedIndexIsUsed() {
+        MemberSearchCondition prefix = new MemberSearchCondition();
+        prefix.setUsernameStartsWith("MEM");
+        MemberSearchCondition ignoreCase = new MemberSearchCondition();
+        ignoreCase.setUsernameIgnoreCase("MEMBERA");
+
+        String prefixPlan = explainSearch(prefix, "mem%");
+        String equalPlan = explainSearch(ignoreCase, "membera");
+
+        assertThat(prefixPlan).containsIgnoringCase("IDX_MEMBER_USERNAME_NORMALIZED");
+        assertThat(equalPlan).containsIgnoringCase("IDX_MEMBER_USERNAME_NORMALIZED");
+    }
+
+    /**
+     * search()가 실제로 만든 SQL을 잡아 같은 바인드 값으로 EXPLAIN한다
+     *
+     * @param condition
+     * @param bindValue
+     * @return
+     */
+    private String explainSearch(MemberSearchCondition condition, String bindValue) {
+        SqlCapture.STATEMENTS.clear();
+        memberRepository.search(condition);
+
+        String sql = SqlCapture.STATEMENTS.stream()
+                .filter(statement -> statement.contains("username_normalized"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("search SQL was not captured"))
+                // use_sql_comments로 붙은 JPQL 주석은 EXPLAIN에 필요 없다
+                .replaceFirst("(?s)^\\s*/\\*.*?\\*/", "");
+        assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(1);
+
+        return (String) entityManager.createNativeQuery("EXPLAIN " + sql.replace("?", "?1"))
+                .setParameter(1, bindValue)
+                .getSingleResult();
+    }
+
+    @Test
+    public void searchUsernameContains() {
+        entityManager.persist(new Member("alphaMember", 10));
+        entityManager.persist(new Member("MEMBERbeta", 20));
+        entityManager.persist(new Member("other", 30));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("member");
+
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("alphaMember", "MEMBERbeta");
+    }
+
+    @Test
+    public void ageHistogram() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 5, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 25, teamA));
+        entityManager.persist(new Member("member4", 30, teamB));
+        entityManager.persist(new Member("member5", 45, teamB));
+
+        int[] bounds = {10, 30, 40};
+
+        assertThat(memberRepository.ageHistogram(new MemberSearchCondition(), bounds)).containsExactly(1, 2, 1, 1);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        assertThat(memberRepository.ageHistogram(condition, bounds)).containsExactly(0, 0, 1, 1);
+
+        condition.setTeamName("unknown");
+
+        assertThat(memberRepository.ageHistogram(condition, bounds)).containsExactly(0, 0, 0, 0);
+        assertThatThrownBy(() -> memberRepository.ageHistogram(new MemberSearchCondition(), new int[]{30, 30}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptureCustomizer() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlCapture());
+        }
+    }
+
+    /**
+     * Hibernate가 실행하는 SQL을 모은다
+     */
+    static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tistory.jaimemin.querydsl.repository;
+
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.dto.MemberTeamDto;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class MemberSqlRepositoryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("memberA", 10, teamA));
+        entityManager.persist(new Member("memberB", 20, teamA));
+        entityManager.persist(new Member("memberC", 30, teamB));
+        entityManager.persist(new Member("memberD", 40, teamB));
+        entityManager.persist(new Member("memberE", 50));
+
+        // querydsl-sql은 영속성 컨텍스트를 거치지 않으므로 DB에 반영해 둔다
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void searchSameAsJpa() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("memberC", "memberD");
+        assertThat(result).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(memberRepository.search(condition));
+    }
+
+    @Test
+    public void searchKeepsMembersWithoutTeam() {
+        List<MemberTeamDto> result = memberSqlRepository.search(new MemberSearchCondition());
+
+        assertThat(result).hasSize(5);
+        assertThat(result).filteredOn(dto -> dto.getTeamId() == null)
+                .extracting("username").containsExactly("memberE");
+    }
+
+    @Test
+    public void searchPageComplexSameAsJpa() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3);
+
+        Page<MemberTeamDto> result = memberSqlRepository.searchPageComplex(condition, pageRequest);
+        Page<MemberTeamDto> expected = memberRepository.searchPageComplex(condition, pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(expected.getContent());
+    }
+}
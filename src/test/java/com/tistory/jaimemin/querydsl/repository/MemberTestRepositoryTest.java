@@ -0,0 +1,57 @@
+package com.tistory.jaimemin.querydsl.repository;
+
+import com.tistory.jaimemin.querydsl.dto.MemberSearchCondition;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.Team;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Test
+    public void applyPaginationWithCountQuery() {
+        Team teamA = new Team("pagingTeamA");
+        Team teamB = new Team("pagingTeamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamA));
+        entityManager.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("pagingTeamA");
+
+        // 첫 페이지가 가득 차야 count 쿼리가 실행된다
+        Page<Member> result = memberTestRepository.applyPagination2(condition, PageRequest.of(0, 2));
+
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void readOnlyByDefault() throws NoSuchMethodException {
+        AnnotationTransactionAttributeSource source = new AnnotationTransactionAttributeSource();
+
+        // Querydsl4RepositorySupport의 @Transactional(readOnly = true)를 물려받는다
+        assertThat(source.getTransactionAttribute(MemberTestRepository.class.getMethod("basicSelect"),
+                MemberTestRepository.class).isReadOnly()).isTrue();
+    }
+}
@@ -0,0 +1,85 @@
+package com.tistory.jaimemin.querydsl.repository.support;
+
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.QMember;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+
+import static com.tistory.jaimemin.querydsl.entity.QMember.member;
+import static com.tistory.jaimemin.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountQueryOptimizerTest {
+
+    // JPQL 문자열만 확인하므로 EntityManager 없이 만든다
+    JPAQueryFactory queryFactory = new JPAQueryFactory(JPQLTemplates.DEFAULT, (EntityManager) null);
+
+    @Test
+    public void dropUnreferencedToOneLeftJoin() {
+        JPAQuery<Member> contentQuery = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(10))
+                .orderBy(member.username.desc());
+
+        String count = CountQueryOptimizer.derive(queryFactory, contentQuery).toString();
+
+        assertThat(count).startsWith("select count(*)");
+        assertThat(count).doesNotContain("join");
+        assertThat(count).doesNotContain("order by");
+        assertThat(count).contains("member1.age >= ?1");
+    }
+
+    @Test
+    public void keepJoinReferencedByPredicate() {
+        JPAQuery<Member> contentQuery = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"));
+
+        String count = CountQueryOptimizer.derive(queryFactory, contentQuery).toString();
+
+        assertThat(count).contains("left join member1.team as team");
+    }
+
+    @Test
+    public void removeFetchFlag() {
+        JPAQuery<Member> contentQuery = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin();
+
+        String count = CountQueryOptimizer.derive(queryFactory, contentQuery).toString();
+
+        assertThat(count).contains("inner join member1.team as team");
+        assertThat(count).doesNotContain("fetch");
+    }
+
+    @Test
+    public void keepCollectionLeftJoin() {
+        QMember teamMember = new QMember("teamMember");
+        JPAQuery<?> contentQuery = queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, teamMember);
+
+        String count = CountQueryOptimizer.derive(queryFactory, contentQuery).toString();
+
+        assertThat(count).contains("left join team.members as teamMember");
+    }
+
+    @Test
+    public void groupByIsNotDerivable() {
+        JPAQuery<?> contentQuery = queryFactory
+                .select(member.team.id, member.count())
+                .from(member)
+                .groupBy(member.team.id);
+
+        assertThat(CountQueryOptimizer.isDerivable(contentQuery)).isFalse();
+        assertThatThrownBy(() -> CountQueryOptimizer.derive(queryFactory, contentQuery))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
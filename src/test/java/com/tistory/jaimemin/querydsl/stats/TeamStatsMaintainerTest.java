@@ -0,0 +1,129 @@
+package com.tistory.jaimemin.querydsl.stats;
+
+import com.tistory.jaimemin.querydsl.dto.TeamStatsDto;
+import com.tistory.jaimemin.querydsl.entity.Member;
+import com.tistory.jaimemin.querydsl.entity.Team;
+import com.tistory.jaimemin.querydsl.repository.MemberJpaRepository;
+import com.tistory.jaimemin.querydsl.repository.TeamStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+/**
+ * team_stats는 커밋 직전에 반영되므로 롤백되는 @Transactional 테스트 대신 실제로 커밋하고 끝나면 지운다
+ */
+@SpringBootTest
+class TeamStatsMaintainerTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        jdbcTemplate.update("DELETE FROM member_tombstone");
+        jdbcTemplate.update("DELETE FROM member");
+        jdbcTemplate.update("DELETE FROM team_stats");
+        jdbcTemplate.update("DELETE FROM team");
+    }
+
+    @Test
+    public void maintainedOnMemberChanges() {
+        Long[] ids = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            entityManager.persist(teamA);
+            entityManager.persist(teamB);
+
+            Member member1 = new Member("member1", 10, teamA);
+            Member member2 = new Member("member2", 20, teamA);
+            Member member3 = new Member("member3", 30, teamB);
+            entityManager.persist(member1);
+            entityManager.persist(member2);
+            entityManager.persist(member3);
+
+            return new Long[]{teamA.getId(), teamB.getId(), member1.getId(), member2.getId(), member3.getId()};
+        });
+
+        assertThat(teamStatsRepository.findAll())
+                .extracting("teamName", "memberCount", "ageSum", "minAge", "maxAge")
+                .containsExactly(
+                        tuple("teamA", 2L, 30L, 10, 20),
+                        tuple("teamB", 1L, 30L, 30, 30));
+
+        // 나이 변경, 팀 이동, 삭제. 최솟값/최댓값이던 회원이 빠지므로 stale이 되고 조회할 때 다시 계산된다
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.find(Member.class, ids[2]).setAge(15);
+            entityManager.find(Member.class, ids[3]).changeTeam(entityManager.find(Team.class, ids[1]));
+            entityManager.remove(entityManager.find(Member.class, ids[4]));
+        });
+
+        assertThat(teamStatsRepository.check().isConsistent()).isTrue();
+        assertThat(teamStatsRepository.findAll())
+                .extracting("teamName", "memberCount", "ageSum", "minAge", "maxAge")
+                .containsExactly(
+                        tuple("teamA", 1L, 15L, 15, 15),
+                        tuple("teamB", 1L, 20L, 20, 20));
+    }
+
+    @Test
+    public void rolledBackChangesAreNotApplied() {
+        Long teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("teamA");
+            entityManager.persist(team);
+            entityManager.persist(new Member("member1", 10, team));
+
+            return team.getId();
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.persist(new Member("member2", 20, entityManager.find(Team.class, teamId)));
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+
+        List<TeamStatsDto> stats = teamStatsRepository.findAll();
+
+        assertThat(stats).extracting("memberCount").containsExactly(1L);
+        assertThat(teamStatsRepository.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    public void rebuiltAfterBulkOperation() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("teamA");
+            entityManager.persist(team);
+            entityManager.persist(new Member("member1", 10, team));
+            entityManager.persist(new Member("member2", 20, team));
+            entityManager.persist(new Member("member3", 30, team));
+        });
+
+        memberJpaRepository.bulkAgePlus(20, 5);
+        memberJpaRepository.bulkDeleteByAgeGt(30);
+
+        assertThat(teamStatsRepository.check().isConsistent()).isTrue();
+        assertThat(teamStatsRepository.findAll())
+                .extracting("memberCount", "ageSum", "minAge", "maxAge")
+                .containsExactly(tuple(2L, 35L, 10, 25));
+    }
+}
@@ -0,0 +1,42 @@
+package com.tistory.jaimemin.querydsl.version;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ChangeVersionGeneratorTest {
+
+    @Autowired
+    ChangeVersionGenerator changeVersionGenerator;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    public void committedStopsBeforeInFlightVersion() {
+        long[] versions = new long[2];
+
+        transactionTemplate.executeWithoutResult(status -> {
+            versions[0] = changeVersionGenerator.next();
+            // 트랜잭션이 끝나기 전에는 가장 작은 진행 중 버전 앞에서 멈춘다
+            versions[1] = changeVersionGenerator.next();
+
+            assertThat(changeVersionGenerator.committed()).isEqualTo(versions[0] - 1);
+        });
+
+        assertThat(changeVersionGenerator.committed()).isGreaterThanOrEqualTo(versions[1]);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long version = changeVersionGenerator.next();
+            status.setRollbackOnly();
+
+            assertThat(changeVersionGenerator.committed()).isLessThan(version);
+        });
+
+        assertThat(changeVersionGenerator.committed()).isGreaterThan(versions[1]);
+    }
+}